@@ -0,0 +1,631 @@
+package manager;
+
+import manager.index.SlotIntervalTree;
+import manager.store.ColumnarTaskStore;
+import manager.store.SlotDirectory;
+import manager.store.TaskRecords;
+import manager.store.TaskStore;
+import manager.util.IntHashMap;
+import manager.util.IntList;
+import manager.util.SortedIntSet;
+import tasks.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Task manager for very large task sets. Tasks live in a {@link TaskStore} as primitive records, and
+ * {@link Task} objects are only created when they are returned to the caller. Indexes are kept on slots:
+ * ids map to slots through a flat directory, each type keeps its ids in order for paging, epics keep lists
+ * of subtask slots, and prioritized tasks are ordered by a treap whose links are primitive arrays.
+ * <p>
+ * Returned objects are copies; changing them does not change the manager until they are passed to an update
+ * method. Not thread-safe.
+ */
+public class CompactTaskManager implements TaskManager, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(CompactTaskManager.class.getName());
+    protected final TaskStore store;
+    protected final HistoryManager historyManager;
+    private final SlotDirectory directory = new SlotDirectory();
+    private final SortedIntSet[] idsByType = {new SortedIntSet(), new SortedIntSet(), new SortedIntSet()};
+    private final SlotIntervalTree timeline;
+    private final IntHashMap<IntList> epicSubTaskSlots = new IntHashMap<>();
+
+    public CompactTaskManager(HistoryManager historyManager) {
+        this(historyManager, new ColumnarTaskStore());
+    }
+
+    /**
+     * Creates a manager over the given store. Records already in the store are indexed, so a persistent
+     * store can be reopened without reloading its tasks.
+     */
+    public CompactTaskManager(HistoryManager historyManager, TaskStore store) {
+        this.historyManager = historyManager;
+        this.store = store;
+        this.timeline = new SlotIntervalTree(store);
+        rebuildIndexes();
+    }
+
+    public int generateId() {
+        int id = store.nextId();
+        store.setNextId(id + 1);
+        return id;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+
+        return materializeAll(TaskType.TASK, Task.class);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+
+        return materializeAll(TaskType.EPIC, Epic.class);
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+
+        return materializeAll(TaskType.SUBTASK, SubTask.class);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+
+        return page(TaskType.TASK, Task.class, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+
+        return page(TaskType.EPIC, Epic.class, afterId, limit);
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+
+        return page(TaskType.SUBTASK, SubTask.class, afterId, limit);
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        if (slotOf(task.getId(), TaskType.TASK) >= 0) {
+            throw new IllegalArgumentException("Задача с таким ID уже существует.");
+        }
+
+        if (isTaskInvalid(task)) {
+            throw new IllegalArgumentException("Задача пересекается с существующими задачами.");
+        }
+
+        task.setId(generateId());
+        int slot = store.allocate();
+        TaskRecords.write(store, slot, task);
+        index(task.getId(), slot);
+        addToTimeline(slot);
+        return task;
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        if (slotOf(epic.getId(), TaskType.EPIC) >= 0) {
+            throw new IllegalArgumentException("Эпик с таким ID уже существует.");
+        }
+
+        epic.setId(generateId());
+        int slot = store.allocate();
+        TaskRecords.write(store, slot, epic);
+        index(epic.getId(), slot);
+        refreshEpic(slot);
+        return (Epic) materialize(slot);
+    }
+
+    @Override
+    public SubTask createSubTask(SubTask subTask) {
+        if (slotOf(subTask.getId(), TaskType.TASK) >= 0 || slotOf(subTask.getId(), TaskType.SUBTASK) >= 0) {
+            throw new IllegalArgumentException("Подзадача с таким ID уже существует.");
+        }
+
+        int uniqueId = generateId();
+
+        if (isTaskInvalid(subTask)) {
+            throw new IllegalArgumentException("Подзадача пересекается по времени с имеющимися задачами");
+        }
+
+        SubTask newSubTask = new SubTask(uniqueId, subTask.getName(), subTask.getEpicId(), subTask.getDuration(), subTask.getStartTime());
+        int slot = store.allocate();
+        TaskRecords.write(store, slot, newSubTask);
+        index(uniqueId, slot);
+        addToTimeline(slot);
+        linkSubTask(newSubTask.getEpicId(), slot);
+        refreshEpicById(newSubTask.getEpicId());
+        return newSubTask;
+    }
+
+    @Override
+    public Task getTask(int id) {
+
+        return view(slotOf(id, TaskType.TASK));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+
+        return (Epic) view(slotOf(id, TaskType.EPIC));
+    }
+
+    @Override
+    public boolean hasEpic(int id) {
+
+        return slotOf(id, TaskType.EPIC) >= 0;
+    }
+
+    @Override
+    public SubTask getSubTask(int id) {
+
+        return (SubTask) view(slotOf(id, TaskType.SUBTASK));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        int slot = slotOf(task.getId(), TaskType.TASK);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Задача с таким ID отсутствует.");
+        }
+
+        historyManager.add(materialize(slot));
+        timeline.remove(slot);
+
+        if (isTaskInvalid(task)) {
+            logger.warning("Задача " + task.getId()
+                    + " пересекается по времени с имеющимися задачами, изменение отклонено.");
+            addToTimeline(slot);
+            return;
+        }
+
+        TaskRecords.write(store, slot, new Task(task));
+        addToTimeline(slot);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        int slot = slotOf(epic.getId(), TaskType.EPIC);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Эпик с таким ID отсутствует.");
+        }
+        store.write(slot, epic.getId(), TaskType.EPIC, store.status(slot), 0, epic.getName());
+    }
+
+    @Override
+    public void updateSubTask(SubTask subTask) {
+        int slot = slotOf(subTask.getId(), TaskType.SUBTASK);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Подзадача с таким ID отсутствует.");
+        }
+
+        historyManager.add(materialize(slot));
+        timeline.remove(slot);
+
+        if (isTaskInvalid(subTask)) {
+            addToTimeline(slot);
+            throw new IllegalArgumentException("Подзадача пересекается с существующими задачами.");
+        }
+
+        int previousEpicId = store.epicId(slot);
+        TaskRecords.write(store, slot, new SubTask(subTask));
+        addToTimeline(slot);
+        if (previousEpicId != subTask.getEpicId()) {
+            unlinkSubTask(previousEpicId, slot);
+            linkSubTask(subTask.getEpicId(), slot);
+            refreshEpicById(previousEpicId);
+        }
+        refreshEpicById(subTask.getEpicId());
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        int slot = slotOf(id, TaskType.TASK);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Задача с таким ID отсутствует.");
+        }
+        release(slot);
+        historyManager.remove(id);
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        int slot = slotOf(id, TaskType.EPIC);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Эпик с таким ID отсутствует.");
+        }
+        IntList subTaskSlots = epicSubTaskSlots.remove(id);
+        if (subTaskSlots != null) {
+            for (int subTaskSlot : subTaskSlots.toArray()) {
+                int subTaskId = store.id(subTaskSlot);
+                release(subTaskSlot);
+                historyManager.remove(subTaskId);
+            }
+        }
+        release(slot);
+        historyManager.remove(id);
+    }
+
+    @Override
+    public void deleteSubTaskById(int id) {
+        int slot = slotOf(id, TaskType.SUBTASK);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Подзадача с таким ID отсутствует.");
+        }
+        int epicId = store.epicId(slot);
+        unlinkSubTask(epicId, slot);
+        release(slot);
+        refreshEpicById(epicId);
+        historyManager.remove(id);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+
+        deleteAll(TaskType.TASK);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        deleteAll(TaskType.EPIC);
+        deleteAll(TaskType.SUBTASK);
+        epicSubTaskSlots.clear();
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        deleteAll(TaskType.SUBTASK);
+        epicSubTaskSlots.clear();
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && store.type(slot) == TaskType.EPIC) {
+                refreshEpic(slot);
+            }
+        }
+    }
+
+    @Override
+    public List<SubTask> getEpicSubtasks(int epicId) {
+        IntList slots = epicSubTaskSlots.get(epicId);
+        List<SubTask> result = new ArrayList<>(slots == null ? 0 : slots.size());
+        if (slots != null) {
+            for (int i = 0; i < slots.size(); i++) {
+                result.add((SubTask) materialize(slots.get(i)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> result = new ArrayList<>(timeline.size());
+        timeline.forEachInOrder(slot -> result.add(materialize(slot)));
+
+        IntList undated = new IntList();
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && store.type(slot) != TaskType.EPIC && store.start(slot) == TaskStore.NONE) {
+                undated.add(store.id(slot));
+            }
+        }
+        int[] ids = undated.toArray();
+        Arrays.sort(ids);
+        for (int id : ids) {
+            result.add(materialize(directory.get(id)));
+        }
+        return result;
+    }
+
+    public boolean isTaskInvalid(Task task) {
+
+        return findOverlappingTask(task) != null;
+    }
+
+    public Task findOverlappingTask(Task task) {
+        long start = TaskRecords.toNanos(task.getStartTime());
+        if (start == TaskStore.NONE) {
+            return null;
+        }
+        int slot = timeline.findOverlapping(start, TaskRecords.endNanos(task));
+        return slot < 0 ? null : materialize(slot);
+    }
+
+    /**
+     * Counts records of the given type and status with a single pass over the store.
+     */
+    public int countByStatus(TaskType type, TaskStatus status) {
+        int count = 0;
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && store.type(slot) == type && store.status(slot) == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public List<Task> findByStatus(TaskType type, TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && store.type(slot) == type && store.status(slot) == status) {
+                result.add(materialize(slot));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns tasks and subtasks whose time slot intersects [from, to], found by scanning the time columns.
+     */
+    public List<Task> findInTimeRange(LocalDateTime from, LocalDateTime to) {
+        long start = TaskRecords.toNanos(from);
+        long end = TaskRecords.toNanos(to);
+        List<Task> result = new ArrayList<>();
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && store.type(slot) != TaskType.EPIC && store.start(slot) != TaskStore.NONE
+                    && store.start(slot) <= end && store.end(slot) >= start) {
+                result.add(materialize(slot));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rebuilds the directory, epic links, epic aggregates, the id counter and the timeline from the store.
+     */
+    private void rebuildIndexes() {
+        directory.clear();
+        epicSubTaskSlots.clear();
+        int maxId = 0;
+        IntList dated = new IntList();
+        IntList[] ids = {new IntList(), new IntList(), new IntList()};
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (!store.isUsed(slot)) {
+                continue;
+            }
+            int id = store.id(slot);
+            directory.put(id, slot);
+            maxId = Math.max(maxId, id);
+            TaskType type = store.type(slot);
+            ids[type.ordinal()].add(id);
+            if (type == TaskType.SUBTASK) {
+                linkSubTask(store.epicId(slot), slot);
+            }
+            if (type != TaskType.EPIC && store.start(slot) != TaskStore.NONE) {
+                dated.add(slot);
+            }
+        }
+        store.setNextId(Math.max(store.nextId(), maxId + 1));
+        for (TaskType type : TaskType.values()) {
+            int[] sorted = ids[type.ordinal()].toArray();
+            Arrays.sort(sorted);
+            idsByType[type.ordinal()].clear();
+            for (int id : sorted) {
+                idsByType[type.ordinal()].add(id);
+            }
+        }
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && store.type(slot) == TaskType.EPIC) {
+                refreshEpic(slot);
+            }
+        }
+        int[] slots = dated.toArray();
+        sortByStart(slots, 0, slots.length - 1);
+        timeline.build(slots);
+    }
+
+    protected int getNextId() {
+
+        return store.nextId();
+    }
+
+    protected void setNextId(int nextId) {
+
+        store.setNextId(Math.max(store.nextId(), nextId));
+    }
+
+    /**
+     * Closes the underlying store, flushing it first if it is persistent.
+     */
+    @Override
+    public void close() {
+
+        store.close();
+    }
+
+    private Task view(int slot) {
+        if (slot < 0) {
+            return null;
+        }
+        Task task = materialize(slot);
+        historyManager.add(task);
+        return task;
+    }
+
+    private Task materialize(int slot) {
+        Task task = TaskRecords.read(store, slot);
+        if (task instanceof Epic epic) {
+            IntList slots = epicSubTaskSlots.get(epic.getId());
+            if (slots != null) {
+                for (int i = 0; i < slots.size(); i++) {
+                    epic.addSubTask((SubTask) TaskRecords.read(store, slots.get(i)));
+                }
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Walks the ordered ids of the type upwards from {@code afterId}, so only the ids of the page are visited.
+     */
+    private <T extends Task> List<T> page(TaskType type, Class<T> taskClass, int afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Лимит должен быть положительным: " + limit);
+        }
+        SortedIntSet ids = idsByType[type.ordinal()];
+        List<T> page = new ArrayList<>();
+        for (int i = ids.higherIndex(afterId); i >= 0 && page.size() < limit; i = ids.nextIndex(i)) {
+            page.add(taskClass.cast(materialize(directory.get(ids.get(i)))));
+        }
+        return page;
+    }
+
+    /**
+     * Materializes every task of the type in ascending id order; slot order changes as freed slots are reused.
+     */
+    private <T extends Task> List<T> materializeAll(TaskType type, Class<T> taskClass) {
+        SortedIntSet ids = idsByType[type.ordinal()];
+        List<T> result = new ArrayList<>(ids.size());
+        for (int i = ids.higherIndex(Integer.MIN_VALUE); i >= 0; i = ids.nextIndex(i)) {
+            result.add(taskClass.cast(materialize(directory.get(ids.get(i)))));
+        }
+        return result;
+    }
+
+    private int slotOf(int id, TaskType type) {
+        int slot = directory.get(id);
+        return slot >= 0 && store.type(slot) == type ? slot : -1;
+    }
+
+    private void addToTimeline(int slot) {
+        if (store.start(slot) != TaskStore.NONE) {
+            timeline.add(slot);
+        }
+    }
+
+    private void index(int id, int slot) {
+        directory.put(id, slot);
+        idsByType[store.type(slot).ordinal()].add(id);
+    }
+
+    private void release(int slot) {
+        timeline.remove(slot);
+        directory.remove(store.id(slot));
+        idsByType[store.type(slot).ordinal()].remove(store.id(slot));
+        store.release(slot);
+    }
+
+    private void deleteAll(TaskType type) {
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && store.type(slot) == type) {
+                int id = store.id(slot);
+                release(slot);
+                historyManager.remove(id);
+            }
+        }
+    }
+
+    private void linkSubTask(int epicId, int slot) {
+        IntList slots = epicSubTaskSlots.get(epicId);
+        if (slots == null) {
+            slots = new IntList(4);
+            epicSubTaskSlots.put(epicId, slots);
+        }
+        slots.add(slot);
+    }
+
+    private void unlinkSubTask(int epicId, int slot) {
+        IntList slots = epicSubTaskSlots.get(epicId);
+        if (slots != null) {
+            slots.removeValue(slot);
+            if (slots.isEmpty()) {
+                epicSubTaskSlots.remove(epicId);
+            }
+        }
+    }
+
+    private void refreshEpicById(int epicId) {
+        int slot = slotOf(epicId, TaskType.EPIC);
+        if (slot >= 0) {
+            refreshEpic(slot);
+        }
+    }
+
+    /**
+     * Recomputes an epic's status and timing with one primitive pass over its subtask slots.
+     */
+    private void refreshEpic(int epicSlot) {
+        IntList slots = epicSubTaskSlots.get(store.id(epicSlot));
+        int count = slots == null ? 0 : slots.size();
+        int done = 0;
+        int inProgress = 0;
+        long start = TaskStore.NONE;
+        long end = TaskStore.NONE;
+        long duration = 0;
+        boolean hasDuration = false;
+        for (int i = 0; i < count; i++) {
+            int slot = slots.get(i);
+            switch (store.status(slot)) {
+                case DONE -> done++;
+                case IN_PROGRESS -> inProgress++;
+                default -> {
+                }
+            }
+            long subTaskStart = store.start(slot);
+            if (subTaskStart != TaskStore.NONE) {
+                start = start == TaskStore.NONE ? subTaskStart : Math.min(start, subTaskStart);
+                end = end == TaskStore.NONE ? store.end(slot) : Math.max(end, store.end(slot));
+            }
+            if (store.duration(slot) != TaskStore.NONE) {
+                duration += store.duration(slot);
+                hasDuration = true;
+            }
+        }
+
+        TaskStatus status;
+        if (count == 0) {
+            status = TaskStatus.NEW;
+        } else if (done == count) {
+            status = TaskStatus.DONE;
+        } else if (done > 0 || inProgress > 0) {
+            status = TaskStatus.IN_PROGRESS;
+        } else {
+            status = TaskStatus.NEW;
+        }
+        store.setStatus(epicSlot, status);
+        store.setTiming(epicSlot, start, end, hasDuration ? duration : TaskStore.NONE);
+    }
+
+    private void sortByStart(int[] slots, int from, int to) {
+        while (from < to) {
+            int pivot = slots[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (startsBefore(slots[i], pivot)) {
+                    i++;
+                }
+                while (startsBefore(pivot, slots[j])) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = slots[i];
+                    slots[i++] = slots[j];
+                    slots[j--] = swap;
+                }
+            }
+            if (j - from < to - i) {
+                sortByStart(slots, from, j);
+                from = i;
+            } else {
+                sortByStart(slots, i, to);
+                to = j;
+            }
+        }
+    }
+
+    private boolean startsBefore(int a, int b) {
+        int cmp = Long.compare(store.start(a), store.start(b));
+        return cmp != 0 ? cmp < 0 : store.id(a) < store.id(b);
+    }
+}
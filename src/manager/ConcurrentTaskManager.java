@@ -0,0 +1,224 @@
+package manager;
+
+import manager.util.ConcurrentIntMap;
+import tasks.Epic;
+import tasks.SubTask;
+import tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Task manager that can be shared by concurrent HTTP handlers.
+ * <p>
+ * Lookups read the concurrent maps without locking. Every mutation runs under a single write lock, so the
+ * overlap check and the insert into the prioritized index happen atomically; listings and pages walk the id
+ * order, which is not thread-safe, under the same lock.
+ * Stored objects are never changed once published: tasks and subtasks are replaced on update, and epics
+ * are copied before a change and put back afterwards, so a reader may iterate an epic's subtasks safely.
+ * The flip side is that an epic returned earlier does not reflect later changes; read it again instead.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(new SynchronizedHistoryManager(historyManager),
+                new ConcurrentIntMap<>(), new ConcurrentIntMap<>(), new ConcurrentIntMap<>(),
+                new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public Task createTask(Task task) {
+
+        return callLocked(() -> super.createTask(task));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+
+        return callLocked(() -> super.createEpic(epic));
+    }
+
+    @Override
+    public SubTask createSubTask(SubTask subTask) {
+
+        return callLocked(() -> super.createSubTask(subTask));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+
+        runLocked(() -> super.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+
+        runLocked(() -> super.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubTask(SubTask subTask) {
+
+        runLocked(() -> super.updateSubTask(subTask));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+
+        runLocked(() -> super.deleteTaskById(id));
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+
+        runLocked(() -> super.deleteEpicById(id));
+    }
+
+    @Override
+    public void deleteSubTaskById(int id) {
+
+        runLocked(() -> super.deleteSubTaskById(id));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+
+        runLocked(super::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+
+        runLocked(super::deleteAllEpics);
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+
+        runLocked(super::deleteAllSubTasks);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+
+        return callLocked(super::getAllTasks);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+
+        return callLocked(super::getAllEpics);
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+
+        return callLocked(super::getAllSubTasks);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+
+        return callLocked(() -> super.getTasksPage(afterId, limit));
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+
+        return callLocked(() -> super.getEpicsPage(afterId, limit));
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+
+        return callLocked(() -> super.getSubTasksPage(afterId, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+
+        return callLocked(() -> super.getPrioritizedTasks(from, to, limit));
+    }
+
+    /**
+     * Serves the cached snapshot without locking; only a rebuild after a mutation takes the write lock.
+     */
+    @Override
+    public PrioritizedSnapshot getPrioritizedSnapshot() {
+        PrioritizedSnapshot snapshot = cachedPrioritizedSnapshot();
+        return snapshot != null ? snapshot : callLocked(super::getPrioritizedSnapshot);
+    }
+
+    @Override
+    public Task findOverlappingTask(Task task) {
+
+        return callLocked(() -> super.findOverlappingTask(task));
+    }
+
+    @Override
+    protected Epic epicForUpdate(int id) {
+        Epic epic = super.epicForUpdate(id);
+        return epic == null ? null : new Epic(epic);
+    }
+
+    @Override
+    protected Set<Integer> newSubTaskIdSet() {
+
+        return ConcurrentHashMap.newKeySet();
+    }
+
+    private <T> T callLocked(Supplier<T> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void runLocked(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static class SynchronizedHistoryManager implements HistoryManager {
+        private final HistoryManager delegate;
+
+        SynchronizedHistoryManager(HistoryManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+
+            delegate.add(task);
+        }
+
+        @Override
+        public synchronized void remove(int id) {
+
+            delegate.remove(id);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+
+            return delegate.getHistory();
+        }
+
+        @Override
+        public long getVersion() {
+
+            return delegate.getVersion();
+        }
+    }
+}
@@ -1,27 +1,151 @@
 package manager;
 
+import manager.storage.BinarySnapshot;
+import manager.storage.CsvSnapshotReader;
+import manager.storage.Durability;
+import manager.storage.HistoryLog;
+import manager.storage.JournalRecords;
+import manager.storage.JournalWriter;
+import manager.storage.SnapshotFormat;
+import manager.storage.StorageConfig;
+import manager.storage.StorageMode;
+import manager.store.OffHeapTaskStore;
+import manager.store.SlotDirectory;
+import manager.store.TaskRecords;
 import tasks.*;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
-public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager {
+/**
+ * Task manager that persists every mutation to a file according to its {@link StorageConfig}.
+ * <p>
+ * Like {@link InMemoryTaskManager}, it is meant for one thread at a time. Mutations additionally run under
+ * a lock that covers their persistence, so writers from several threads still reach the storage in the order
+ * they were applied and can share one fsync; reads take no lock. For concurrent readers and writers use
+ * {@link ConcurrentTaskManager}.
+ * <p>
+ * Mutations are applied in memory before they are durable and are not rolled back. If persisting one fails,
+ * the caller gets an {@link IllegalStateException}, the change stays visible to readers but may be lost on
+ * restart, and the manager is marked failed: every later mutation, {@link #save()} and {@link #compact()}
+ * is rejected, so nothing written afterwards depends on the lost change. Reopening the manager from its files
+ * restores the last durable state.
+ */
+public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager, AutoCloseable {
     private static final Logger logger = Logger.getLogger(FileBackedTaskManager.class.getName());
+    private static final String JOURNAL_PUT = "PUT";
+    private static final String JOURNAL_DELETE = "DEL";
+    private static final String JOURNAL_CLEAR = "CLR";
     private final File file;
+    private final File journalFile;
+    private final StorageConfig config;
+    private final HistoryLog historyLog;
+    private final JournalWriter journal;
+    private final SlotDirectory slots = new SlotDirectory();
+    private final ScheduledExecutorService storeSync;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object historyLock = new Object();
+    private final ExecutorService historyRewriter;
+    private final AtomicBoolean historyRewriteScheduled = new AtomicBoolean();
+    private OffHeapTaskStore store;
+    private int journalRecords;
+    private volatile Throwable failure;
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSSSS");
 
     public FileBackedTaskManager(HistoryManager historyManager, File file) {
+        this(historyManager, file, StorageConfig.snapshot());
+    }
+
+    public FileBackedTaskManager(HistoryManager historyManager, File file, StorageConfig config) {
         super(historyManager);
         this.file = file;
+        this.journalFile = new File(file.getPath() + ".journal");
+        this.config = config;
+        this.historyLog = new HistoryLog(new File(file.getPath() + ".history").toPath());
+        this.historyRewriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "history-rewrite-" + file.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
         load();
+        this.journal = config.getMode() == StorageMode.JOURNAL
+                ? new JournalWriter(journalFile.toPath(), config.getDurability(), config.getSyncIntervalMillis())
+                : null;
+        this.storeSync = store != null && config.getDurability() == Durability.PERIODIC ? startStoreSync() : null;
     }
 
+    /**
+     * Writes a full snapshot. In mapped mode the slots are already up to date, so this only forces them to disk.
+     *
+     * @throws UncheckedIOException if the snapshot could not be written; the previous snapshot is left in place
+     * @throws IllegalStateException if an earlier write failed, see the class description
+     */
     public void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+        runLocked(() -> {
+            checkWritable();
+            writeSnapshot(config.getDurability() != Durability.OS_BUFFERED);
+        });
+    }
+
+    /**
+     * Writes the snapshot next to the target and renames it into place. With {@code force} the snapshot and
+     * its directory entry are on disk when this returns, so the caller may drop whatever the snapshot supersedes.
+     */
+    private void writeSnapshot(boolean force) {
+        try {
+            writeSnapshotFile(force);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при сохранении задач: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeSnapshotFile(boolean force) throws IOException {
+        if (store != null) {
+            store.force();
+            return;
+        }
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        if (config.getSnapshotFormat() == SnapshotFormat.BINARY) {
+            BinarySnapshot.write(temp, tasks.values(), epics.values(), subTasks.values());
+        } else {
+            writeCsv(temp);
+        }
+        if (force) {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        replace(temp, target);
+        if (force) {
+            forceDirectory(target.toAbsolutePath().getParent());
+        }
+        Files.deleteIfExists(OffHeapTaskStore.namesPath(target));
+    }
+
+    private void writeCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
             writer.write("id,type,name,status,epicId,startTime,duration\n");
 
             for (Task task : tasks.values()) {
@@ -33,8 +157,78 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
             for (SubTask subTask : subTasks.values()) {
                 writer.write(taskToString(subTask) + "\n");
             }
+        }
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot and truncates it. The journal is dropped only after the snapshot
+     * has been renamed into place and forced to disk; if the snapshot cannot be written, the journal is kept.
+     *
+     * @throws UncheckedIOException if the snapshot could not be written
+     * @throws IllegalStateException if a journal write failed, see the class description
+     */
+    public void compact() {
+        runLocked(() -> {
+            checkWritable();
+            if (journal != null) {
+                awaitJournal();
+            }
+            writeSnapshot(true);
+            try {
+                if (journal != null) {
+                    journal.reset();
+                } else {
+                    Files.deleteIfExists(journalFile.toPath());
+                }
+                journalRecords = 0;
+            } catch (IOException e) {
+                logger.severe("Ошибка при очистке журнала: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Returns a future that completes once every mutation made so far has reached the configured
+     * {@link Durability}. In snapshot mode mutations are written synchronously, so the future is already complete.
+     */
+    public CompletableFuture<Void> whenDurable() {
+
+        return journal != null ? journal.whenDurable() : CompletableFuture.completedFuture(null);
+    }
+
+    public File getJournalFile() {
+
+        return journalFile;
+    }
+
+    public File getHistoryFile() {
+
+        return historyLog.getPath().toFile();
+    }
+
+    @Override
+    public void close() {
+        if (storeSync != null) {
+            storeSync.shutdown();
+        }
+        historyRewriter.shutdown();
+        try {
+            if (!historyRewriter.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("Перезапись журнала истории не завершилась до закрытия.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+            historyLog.close();
         } catch (IOException e) {
-            logger.severe("Ошибка при сохранении задач: " + e.getMessage());
+            logger.severe("Ошибка при закрытии журнала истории: " + e.getMessage());
+        }
+        if (store != null) {
+            runLocked(store::close);
         }
     }
 
@@ -55,7 +249,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
     }
 
     public Task taskFromString(String value) {
-        String[] fields = value.split(",");
+        String[] fields = value.split(",", -1);
         int id = Integer.parseInt(fields[0]);
         TaskType type = TaskType.valueOf(fields[1]);
         String name = fields[2];
@@ -89,28 +283,457 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
     }
 
     private void load() {
-        if (!file.exists()) {
-            return;
+        Path path = file.toPath();
+        boolean mapped = config.getMode() == StorageMode.MAPPED;
+        try {
+            if (OffHeapTaskStore.isStore(path)) {
+                OffHeapTaskStore existing = OffHeapTaskStore.mapped(path);
+                readStore(existing);
+                if (mapped) {
+                    store = existing;
+                } else {
+                    existing.close();
+                    slots.clear();
+                }
+            } else if (BinarySnapshot.isBinary(path)) {
+                BinarySnapshot.read(path, this::putLoaded);
+            } else if (file.exists()) {
+                new CsvSnapshotReader().read(path, this::taskFromString, this::putLoaded);
+            }
+            if (journalFile.exists()) {
+                replayJournal();
+            }
+            rebuildIndexes();
+            if (config.getMode() == StorageMode.SNAPSHOT && journalRecords > 0) {
+                compactQuietly();
+            }
+            if (mapped && (store == null || journalRecords > 0)) {
+                if (store == null) {
+                    migrateToStore();
+                } else {
+                    syncStore();
+                }
+                Files.deleteIfExists(journalFile.toPath());
+                journalRecords = 0;
+            }
+            replayHistory();
+        } catch (IOException e) {
+            logger.severe("Ошибка при загрузке задач: " + e.getMessage());
         }
+    }
 
+    /**
+     * Loads every used slot of a mapped store; the store header supplies the id counter.
+     */
+    private void readStore(OffHeapTaskStore source) {
+        for (int slot = 0; slot < source.slotLimit(); slot++) {
+            if (source.isUsed(slot)) {
+                putLoaded(TaskRecords.read(source, slot));
+                slots.put(source.id(slot), slot);
+            }
+        }
+        setNextId(source.nextId());
+    }
+
+    /**
+     * Builds a mapped store from tasks loaded out of a snapshot. The store is written next to the snapshot and
+     * then moved over it, names file first: until the main file is replaced, a restart still sees the snapshot.
+     */
+    private void migrateToStore() throws IOException {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        Files.deleteIfExists(OffHeapTaskStore.namesPath(temp));
+        store = OffHeapTaskStore.mapped(temp);
+        try {
+            syncStore();
+        } finally {
+            store.close();
+            store = null;
+        }
+        replace(OffHeapTaskStore.namesPath(temp), OffHeapTaskStore.namesPath(target));
+        replace(temp, target);
+        store = OffHeapTaskStore.mapped(target);
+        logger.info("Задачи перенесены в отображаемый файл: " + target);
+    }
+
+    /**
+     * Rewrites the store from the task maps: slots of missing tasks are freed, all other slots are overwritten.
+     */
+    private void syncStore() {
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && findLoaded(store.id(slot)) == null) {
+                slots.remove(store.id(slot));
+                store.release(slot);
+            }
+        }
+        tasks.values().forEach(this::writeSlot);
+        epics.values().forEach(this::writeSlot);
+        subTasks.values().forEach(this::writeSlot);
+        store.setNextId(getNextId());
+        store.force();
+    }
+
+    private void writeSlot(Task task) {
+        int slot = slots.get(task.getId());
+        if (slot < 0) {
+            slot = store.allocate();
+            slots.put(task.getId(), slot);
+        }
+        TaskRecords.write(store, slot, task);
+    }
+
+    private void releaseSlot(int id) {
+        int slot = slots.remove(id);
+        if (slot >= 0) {
+            store.release(slot);
+        }
+    }
+
+    private void clearSlots(TaskType type) {
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            if (store.isUsed(slot) && (store.type(slot) == type
+                    || type == TaskType.EPIC && store.type(slot) == TaskType.SUBTASK)) {
+                slots.remove(store.id(slot));
+                store.release(slot);
+            }
+        }
+    }
+
+    private ScheduledExecutorService startStoreSync() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mapped-store-sync-" + file.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getSyncIntervalMillis();
+        executor.scheduleWithFixedDelay(() -> runLocked(() -> {
+            if (store != null) {
+                store.force();
+            }
+        }), interval, interval, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    /**
+     * Rejects tasks whose times or name cannot be stored in a slot before they reach the in-memory maps.
+     * Epic times are derived from subtasks, which are checked on their own.
+     */
+    private void checkStorable(Task task) {
+        if (config.getMode() == StorageMode.MAPPED && task != null) {
+            if (!(task instanceof Epic)) {
+                TaskRecords.endNanos(task);
+            }
+            OffHeapTaskStore.checkName(task.getName());
+        }
+    }
+
+    /**
+     * Applies the journal over the loaded snapshot. A torn last record is dropped; damage earlier in the journal
+     * fails the load, because skipping it would silently lose acknowledged writes.
+     */
+    private void replayJournal() {
         try {
-            String fileContent = Files.readString(file.toPath());
-            String[] lines = fileContent.split("\n");
-
-            for (int i = 1; i < lines.length; i++) {
-                if (!lines[i].trim().isEmpty()) {
-                    Task task = taskFromString(lines[i]);
-                    if (task instanceof Epic) {
-                        epics.put(task.getId(), (Epic) task);
-                    } else if (task instanceof SubTask) {
-                        subTasks.put(task.getId(), (SubTask) task);
-                    } else {
-                        tasks.put(task.getId(), task);
-                    }
+            journalRecords += JournalRecords.replay(journalFile.toPath(), new JournalRecords.Sink() {
+                @Override
+                public void put(Task task) {
+                    putLoaded(task);
+                }
+
+                @Override
+                public void delete(TaskType type, int id) {
+                    removeLoaded(type, id);
                 }
+
+                @Override
+                public void clear(TaskType type) {
+                    clearLoaded(type);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить задачи из журнала: " + e.getMessage(), e);
+        }
+    }
+
+    private void replayHistory() throws IOException {
+        for (int id : historyLog.read()) {
+            Task task = findLoaded(id);
+            if (task != null) {
+                historyManager.add(task);
             }
+        }
+    }
+
+    private Task findLoaded(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subTasks.get(id);
+        }
+        return task;
+    }
+
+    /**
+     * Logs a view that has just been added to the history. Views add and log under {@link #historyLock}, so
+     * the log keeps the order of the history; a stale log is rewritten in the background, never by the viewer.
+     */
+    private void recordHistory(Task task) {
+        if (task == null) {
+            return;
+        }
+        synchronized (historyLock) {
+            try {
+                historyLog.append(task.getId());
+            } catch (IOException e) {
+                logger.severe("Ошибка при записи истории: " + e.getMessage());
+                return;
+            }
+        }
+        if (historyLog.isStale() && historyRewriteScheduled.compareAndSet(false, true)) {
+            try {
+                historyRewriter.execute(this::rewriteHistory);
+            } catch (RejectedExecutionException e) {
+                historyRewriteScheduled.set(false);
+            }
+        }
+    }
+
+    private void rewriteHistory() {
+        try {
+            List<Integer> ids;
+            synchronized (historyLock) {
+                ids = historyManager.getHistory().stream().map(Task::getId).toList();
+                historyLog.beginRewrite();
+            }
+            historyLog.rewrite(ids);
         } catch (IOException e) {
-            logger.severe("Ошибка при загрузке задач: " + e.getMessage());
+            logger.severe("Ошибка при перезаписи журнала истории: " + e.getMessage());
+        } finally {
+            historyRewriteScheduled.set(false);
+        }
+    }
+
+    private void putLoaded(Task task) {
+        if (task instanceof Epic) {
+            epics.put(task.getId(), (Epic) task);
+        } else if (task instanceof SubTask) {
+            subTasks.put(task.getId(), (SubTask) task);
+        } else {
+            tasks.put(task.getId(), task);
+        }
+    }
+
+    private void removeLoaded(TaskType type, int id) {
+        switch (type) {
+            case TASK -> tasks.remove(id);
+            case EPIC -> {
+                epics.remove(id);
+                subTasks.values().removeIf(subTask -> subTask.getEpicId() == id);
+            }
+            case SUBTASK -> subTasks.remove(id);
+        }
+    }
+
+    private void clearLoaded(TaskType type) {
+        switch (type) {
+            case TASK -> tasks.clear();
+            case EPIC -> {
+                epics.clear();
+                subTasks.clear();
+            }
+            case SUBTASK -> subTasks.clear();
+        }
+    }
+
+    /**
+     * Persists the changes of a mutation that is already applied in memory. A failure leaves memory ahead of
+     * the storage, so the manager is marked failed.
+     */
+    private void persist(Change... changes) {
+        try {
+            persistChanges(changes);
+        } catch (RuntimeException e) {
+            markFailed(e);
+            throw writeFailure();
+        }
+    }
+
+    private void persistChanges(Change... changes) {
+        if (config.getMode() == StorageMode.SNAPSHOT) {
+            if (journalRecords > 0) {
+                compact();
+            } else {
+                save();
+            }
+            return;
+        }
+        if (config.getMode() == StorageMode.MAPPED) {
+            applyToStore(changes);
+            return;
+        }
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        for (Change change : changes) {
+            if (change != null) {
+                batch.writeBytes(journalRecord(change));
+                journalRecords++;
+            }
+        }
+        journal.append(batch.toByteArray()).whenComplete((ignored, error) -> {
+            if (error != null) {
+                markFailed(error);
+            }
+        });
+        if (journalRecords >= config.getCompactionThreshold()) {
+            compactQuietly();
+        }
+    }
+
+    /**
+     * Compacts in the background of a mutation: the records are already in the journal, so a failed snapshot
+     * only postpones compaction until the next attempt.
+     */
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (UncheckedIOException e) {
+            logger.severe("Журнал не свёрнут, он будет сохранён до следующей попытки: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a mutation and enqueues its persistence under the write lock, then waits outside the lock
+     * until the write is durable, so concurrent callers can share one fsync.
+     */
+    private <T> T commit(Supplier<T> mutation) {
+        checkWritable();
+        T result = callLocked(mutation);
+        if (journal != null && config.getDurability() != Durability.PERIODIC && !writeLock.isHeldByCurrentThread()) {
+            awaitJournal();
+        }
+        return result;
+    }
+
+    private void awaitJournal() {
+        try {
+            journal.whenDurable().join();
+        } catch (CompletionException e) {
+            markFailed(e.getCause());
+            throw writeFailure();
+        }
+    }
+
+    private <T> T callLocked(Supplier<T> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void runLocked(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void markFailed(Throwable error) {
+        if (failure == null) {
+            failure = error;
+            logger.severe("Ошибка записи задач, дальнейшие изменения отклоняются: " + error.getMessage());
+        }
+    }
+
+    private void checkWritable() {
+        if (failure != null) {
+            throw writeFailure();
+        }
+    }
+
+    private IllegalStateException writeFailure() {
+
+        return new IllegalStateException("Изменения не сохраняются после ошибки записи, требуется перезапуск: "
+                + failure.getMessage(), failure);
+    }
+
+    private void commit(Runnable mutation) {
+        commit(() -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    private void applyToStore(Change... changes) {
+        for (Change change : changes) {
+            if (change == null) {
+                continue;
+            }
+            switch (change.operation()) {
+                case JOURNAL_PUT -> writeSlot(change.task());
+                case JOURNAL_DELETE -> releaseSlot(change.id());
+                case JOURNAL_CLEAR -> clearSlots(change.type());
+                default -> throw new IllegalArgumentException("Неизвестная операция: " + change.operation());
+            }
+        }
+        store.setNextId(getNextId());
+        if (config.getDurability() == Durability.SYNC) {
+            store.force();
+        }
+    }
+
+    private byte[] journalRecord(Change change) {
+
+        return switch (change.operation()) {
+            case JOURNAL_PUT -> JournalRecords.put(change.task());
+            case JOURNAL_DELETE -> JournalRecords.delete(change.type(), change.id());
+            default -> JournalRecords.clear(change.type());
+        };
+    }
+
+    private Change putRecord(Task task) {
+
+        return task == null ? null : new Change(JOURNAL_PUT, task.getType(), task.getId(), task);
+    }
+
+    private Change deleteRecord(TaskType type, int id) {
+
+        return new Change(JOURNAL_DELETE, type, id, null);
+    }
+
+    private Change clearRecord(TaskType type) {
+
+        return new Change(JOURNAL_CLEAR, type, 0, null);
+    }
+
+    /**
+     * A single persisted mutation: appended to the journal as a {@link JournalRecords} record or applied to the
+     * mapped slots.
+     */
+    private record Change(String operation, TaskType type, int id, Task task) {
+    }
+
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.fine("Каталог не синхронизирован: " + e.getMessage());
+        }
+    }
+
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -118,81 +741,165 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
         return new FileBackedTaskManager(new InMemoryHistoryManager(), file);
     }
 
+    public static FileBackedTaskManager loadFromFile(File file, StorageConfig config) {
+        return new FileBackedTaskManager(new InMemoryHistoryManager(), file, config);
+    }
+
     @Override
     public Task createTask(Task task) {
-        Task newTask = super.createTask(task);
-        save();
-        return newTask;
+        checkStorable(task);
+        return commit(() -> {
+            Task newTask = super.createTask(task);
+            persist(putRecord(newTask));
+            return newTask;
+        });
     }
 
     @Override
     public Epic createEpic(Epic epic) {
-        Epic newEpic = super.createEpic(epic);
-        save();
-        return newEpic;
+        checkStorable(epic);
+        return commit(() -> {
+            Epic newEpic = super.createEpic(epic);
+            persist(putRecord(newEpic));
+            return newEpic;
+        });
     }
 
     @Override
     public SubTask createSubTask(SubTask subTask) {
-        SubTask newSubTask = super.createSubTask(subTask);
-        save();
-        return newSubTask;
+        checkStorable(subTask);
+        return commit(() -> {
+            SubTask newSubTask = super.createSubTask(subTask);
+            persist(putRecord(newSubTask), putRecord(epics.get(newSubTask.getEpicId())));
+            return newSubTask;
+        });
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        checkStorable(task);
+        commit(() -> {
+            super.updateTask(task);
+            Task updatedTask = tasks.get(task.getId());
+            recordHistory(updatedTask);
+            persist(putRecord(updatedTask));
+        });
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        checkStorable(epic);
+        commit(() -> {
+            super.updateEpic(epic);
+            persist(putRecord(epics.get(epic.getId())));
+        });
     }
 
     @Override
     public void updateSubTask(SubTask subTask) {
-        super.updateSubTask(subTask);
-        save();
+        checkStorable(subTask);
+        commit(() -> {
+            super.updateSubTask(subTask);
+            SubTask updatedSubTask = subTasks.get(subTask.getId());
+            recordHistory(updatedSubTask);
+            persist(putRecord(updatedSubTask), putRecord(epics.get(updatedSubTask.getEpicId())));
+        });
     }
 
     @Override
     public void deleteTaskById(int id) {
-        super.deleteTaskById(id);
-        save();
+        commit(() -> {
+            super.deleteTaskById(id);
+            persist(deleteRecord(TaskType.TASK, id));
+        });
     }
 
     @Override
     public void deleteEpicById(int id) {
-        super.deleteEpicById(id);
-        save();
+        commit(() -> {
+            Epic epic = epics.get(id);
+            List<Integer> subTaskIds = epic == null ? List.of()
+                    : epic.getSubTasks().stream().map(SubTask::getId).toList();
+            super.deleteEpicById(id);
+            Change[] changes = new Change[subTaskIds.size() + 1];
+            changes[0] = deleteRecord(TaskType.EPIC, id);
+            for (int i = 0; i < subTaskIds.size(); i++) {
+                changes[i + 1] = deleteRecord(TaskType.SUBTASK, subTaskIds.get(i));
+            }
+            persist(changes);
+        });
     }
 
     @Override
     public void deleteSubTaskById(int id) {
-        super.deleteSubTaskById(id);
-        save();
+        commit(() -> {
+            SubTask subTask = subTasks.get(id);
+            super.deleteSubTaskById(id);
+            persist(deleteRecord(TaskType.SUBTASK, id), putRecord(epics.get(subTask.getEpicId())));
+        });
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        commit(() -> {
+            super.deleteAllTasks();
+            persist(clearRecord(TaskType.TASK));
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        commit(() -> {
+            super.deleteAllEpics();
+            persist(clearRecord(TaskType.EPIC));
+        });
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        commit(() -> {
+            super.deleteAllSubTasks();
+            Change[] records = new Change[epics.size() + 1];
+            records[0] = clearRecord(TaskType.SUBTASK);
+            int i = 1;
+            for (Epic epic : epics.values()) {
+                records[i++] = putRecord(epic);
+            }
+            persist(records);
+        });
     }
 
     @Override
     public Task getTask(int id) {
-        Task task = super.getTask(id);
-        save();
-        return task;
+        synchronized (historyLock) {
+            Task task = super.getTask(id);
+            recordHistory(task);
+            return task;
+        }
     }
 
     @Override
     public Epic getEpic(int id) {
-        Epic epic = super.getEpic(id);
-        save();
-        return epic;
+        synchronized (historyLock) {
+            Epic epic = super.getEpic(id);
+            recordHistory(epic);
+            return epic;
+        }
     }
 
     @Override
     public SubTask getSubTask(int id) {
-        SubTask subTask = super.getSubTask(id);
-        save();
-        return subTask;
+        synchronized (historyLock) {
+            SubTask subTask = super.getSubTask(id);
+            recordHistory(subTask);
+            return subTask;
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (historyLock) {
+            return super.getHistory();
+        }
     }
-}
\ No newline at end of file
+}
@@ -9,4 +9,13 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    /**
+     * Returns a counter that grows whenever the history changes, or {@link PrioritizedSnapshot#UNVERSIONED}
+     * if the implementation does not track changes.
+     */
+    default long getVersion() {
+
+        return PrioritizedSnapshot.UNVERSIONED;
+    }
 }
@@ -1,12 +1,15 @@
 package manager;
 
+import manager.util.IntHashMap;
+import manager.util.IntMap;
 import tasks.*;
 import java.util.*;
 
 public class InMemoryHistoryManager implements HistoryManager {
-    private final Map<Integer, Node> historyMap = new HashMap<>();
+    private final IntMap<Node> historyMap = new IntHashMap<>();
     private Node head;
     private Node tail;
+    private volatile long version;
 
     private static class Node {
         Task task;
@@ -49,6 +52,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
 
         historyMap.put(task.getId(), newNode);
+        version++;
     }
 
     @Override
@@ -63,9 +67,16 @@ public class InMemoryHistoryManager implements HistoryManager {
             }
             removeNode(nodeToRemove);
             historyMap.remove(id);
+            version++;
         }
     }
 
+    @Override
+    public long getVersion() {
+
+        return version;
+    }
+
     private void removeNode(Node node) {
         if (node.prev != null) {
             node.prev.next = node.next;
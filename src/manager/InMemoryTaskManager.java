@@ -1,31 +1,104 @@
 package manager;
 
+import manager.index.TaskIntervalIndex;
+import manager.util.IntHashMap;
+import manager.util.IntMap;
+import manager.util.OrderedIntMap;
 import tasks.*;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class InMemoryTaskManager implements TaskManager {
 
-    protected final Map<Integer, Task> tasks;
-    protected final Map<Integer, Epic> epics;
-    protected final Map<Integer, SubTask> subTasks;
+    protected final OrderedIntMap<Task> tasks;
+    protected final OrderedIntMap<Epic> epics;
+    protected final OrderedIntMap<SubTask> subTasks;
     protected final HistoryManager historyManager;
-    protected Set<Task> prioritizedTasks;
-    private int taskIdCounter = 1;
+    protected NavigableSet<Task> prioritizedTasks;
+    protected final TaskIntervalIndex intervalIndex;
+    protected final Map<Integer, Set<Integer>> epicSubTaskIds;
+    private final AtomicInteger taskIdCounter = new AtomicInteger(1);
+    private volatile long prioritizedVersion;
+    private volatile long version;
+    private volatile PrioritizedSnapshot prioritizedSnapshot;
 
     public InMemoryTaskManager(HistoryManager historyManager) {
-        this.tasks = new HashMap<>();
-        this.epics = new HashMap<>();
-        this.subTasks = new HashMap<>();
+        this(historyManager, new IntHashMap<>(), new IntHashMap<>(), new IntHashMap<>(), new HashMap<>());
+    }
+
+    protected InMemoryTaskManager(HistoryManager historyManager, IntMap<Task> tasks,
+                                  IntMap<Epic> epics, IntMap<SubTask> subTasks,
+                                  Map<Integer, Set<Integer>> epicSubTaskIds) {
+        this.tasks = new OrderedIntMap<>(tasks);
+        this.epicSubTaskIds = epicSubTaskIds;
+        this.epics = new OrderedIntMap<>(epics);
+        this.subTasks = new OrderedIntMap<>(subTasks);
         this.historyManager = historyManager;
         this.prioritizedTasks = new TreeSet<>(taskComparator);
+        this.intervalIndex = new TaskIntervalIndex();
     }
 
     public int generateId() {
 
-        return taskIdCounter++;
+        return taskIdCounter.getAndIncrement();
+    }
+
+    protected int getNextId() {
+
+        return taskIdCounter.get();
+    }
+
+    /**
+     * Moves the id counter forward to {@code nextId}; a lower value is ignored, so ids are never reused.
+     */
+    protected void setNextId(int nextId) {
+
+        taskIdCounter.accumulateAndGet(nextId, Math::max);
+    }
+
+    /**
+     * Rebuilds everything derived from the task maps after they were filled directly, e.g. on load:
+     * the id counter, epic-subtask links with epic status and timing, and the prioritized and interval indexes.
+     * The indexes are built in bulk from sorted input instead of being inserted one task at a time.
+     */
+    protected void rebuildIndexes() {
+        int[] maxId = {0};
+        for (IntMap<? extends Task> map : List.of(tasks, epics, subTasks)) {
+            map.forEachKey(id -> maxId[0] = Math.max(maxId[0], id));
+        }
+        taskIdCounter.accumulateAndGet(maxId[0] + 1, Math::max);
+
+        epics.values().forEach(Epic::removeSubTasksList);
+        epicSubTaskIds.clear();
+        for (SubTask subTask : subTasks.values()) {
+            linkSubTask(subTask);
+            Epic epic = epics.get(subTask.getEpicId());
+            if (epic != null) {
+                epic.addSubTask(subTask);
+            }
+        }
+        for (Epic epic : epics.values()) {
+            epic.setStatus(epic.calculateStatus());
+            epic.createEpicDateTime();
+        }
+
+        Task[] sorted = new Task[tasks.size() + subTasks.size()];
+        int index = 0;
+        for (Task task : tasks.values()) {
+            sorted[index++] = task;
+        }
+        for (SubTask subTask : subTasks.values()) {
+            sorted[index++] = subTask;
+        }
+        Arrays.parallelSort(sorted, 0, index, taskComparator);
+        List<Task> ordered = Arrays.asList(sorted).subList(0, index);
+
+        prioritizedTasks.clear();
+        prioritizedTasks.addAll(new SortedListView(ordered, taskComparator));
+        intervalIndex.build(ordered);
+        invalidatePrioritized();
     }
 
     @Override
@@ -34,22 +107,70 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public long getVersion() {
+
+        return version;
+    }
+
+    @Override
+    public long getHistoryVersion() {
+
+        return historyManager.getVersion();
+    }
+
+    /**
+     * Lists are in ascending id order, whatever order the underlying map keeps its entries in.
+     */
     @Override
     public List<Task> getAllTasks() {
 
-        return new ArrayList<>(tasks.values());
+        return page(tasks, -1, Integer.MAX_VALUE);
     }
 
     @Override
     public List<Epic> getAllEpics() {
 
-        return new ArrayList<>(epics.values());
+        return page(epics, -1, Integer.MAX_VALUE);
     }
 
     @Override
     public List<SubTask> getAllSubTasks() {
 
-        return new ArrayList<>(subTasks.values());
+        return page(subTasks, -1, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+
+        return page(tasks, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+
+        return page(epics, afterId, limit);
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+
+        return page(subTasks, afterId, limit);
+    }
+
+    /**
+     * Collects up to {@code limit} values with keys above {@code afterId} by walking the map's key order,
+     * so the cost depends on the page size rather than on the size of the map.
+     */
+    private static <T extends Task> List<T> page(OrderedIntMap<T> map, int afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Лимит должен быть положительным: " + limit);
+        }
+        List<T> page = new ArrayList<>(Math.min(limit, map.size()));
+        for (int id = map.nextKey(afterId); id >= 0 && page.size() < limit; id = map.nextKey(id)) {
+            page.add(map.get(id));
+        }
+        return page;
     }
 
     @Override
@@ -64,7 +185,7 @@ public class InMemoryTaskManager implements TaskManager {
 
         task.setId(generateId());
         tasks.put(task.getId(), task);
-        prioritizedTasks.add(task);
+        addPrioritized(task);
         return task;
     }
 
@@ -77,6 +198,7 @@ public class InMemoryTaskManager implements TaskManager {
 
         epic.setId(generateId());
         epics.put(epic.getId(), epic);
+        markModified();
         return epic;
     }
 
@@ -95,13 +217,15 @@ public class InMemoryTaskManager implements TaskManager {
         SubTask newSubTask = new SubTask(uniqueId, subTask.getName(), subTask.getEpicId(), subTask.getDuration(), subTask.getStartTime());
 
         subTasks.put(uniqueId, newSubTask);
-        prioritizedTasks.add(newSubTask);
+        linkSubTask(newSubTask);
+        addPrioritized(newSubTask);
 
-        Epic parentEpic = epics.get(newSubTask.getEpicId());
+        Epic parentEpic = epicForUpdate(newSubTask.getEpicId());
         if (parentEpic != null) {
             parentEpic.addSubTask(newSubTask);
             parentEpic.setStatus(parentEpic.calculateStatus());
             parentEpic.createEpicDateTime();
+            epics.put(parentEpic.getId(), parentEpic);
         }
         return newSubTask;
     }
@@ -126,6 +250,12 @@ public class InMemoryTaskManager implements TaskManager {
         return epic;
     }
 
+    @Override
+    public boolean hasEpic(int id) {
+
+        return epics.containsKey(id);
+    }
+
     @Override
     public SubTask getSubTask(int id) {
         SubTask originalSubTask = subTasks.get(id);
@@ -145,18 +275,18 @@ public class InMemoryTaskManager implements TaskManager {
         Task oldTask = tasks.get(task.getId());
         historyManager.add(oldTask);
 
-        prioritizedTasks.remove(oldTask);
+        removePrioritized(oldTask);
 
         if (isTaskInvalid(task)) {
             System.out.println("Задача пересекается по времени с имеющимися задачами");
-            prioritizedTasks.add(oldTask);
+            addPrioritized(oldTask);
             return;
         }
 
         Task updatedTask = new Task(task);
         tasks.put(updatedTask.getId(), updatedTask);
 
-        prioritizedTasks.add(updatedTask);
+        addPrioritized(updatedTask);
     }
 
     @Override
@@ -164,8 +294,10 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epics.containsKey(epic.getId())) {
             throw new IllegalArgumentException("Эпик с таким ID отсутствует.");
         }
-        Epic saved = epics.get(epic.getId());
+        Epic saved = epicForUpdate(epic.getId());
         saved.setName(epic.getName());
+        epics.put(saved.getId(), saved);
+        markModified();
     }
 
     @Override
@@ -177,22 +309,35 @@ public class InMemoryTaskManager implements TaskManager {
         SubTask oldSubTask = subTasks.get(subTask.getId());
         historyManager.add(oldSubTask);
 
-        prioritizedTasks.remove(oldSubTask);
+        removePrioritized(oldSubTask);
 
         if (isTaskInvalid(subTask)) {
-            prioritizedTasks.add(oldSubTask);
+            addPrioritized(oldSubTask);
             throw new IllegalArgumentException("Подзадача пересекается с существующими задачами.");
         }
 
         SubTask updatedSubTask = new SubTask(subTask);
         subTasks.put(updatedSubTask.getId(), updatedSubTask);
+        if (oldSubTask.getEpicId() != updatedSubTask.getEpicId()) {
+            unlinkSubTask(oldSubTask);
+            linkSubTask(updatedSubTask);
+            Epic previousEpic = epicForUpdate(oldSubTask.getEpicId());
+            if (previousEpic != null) {
+                previousEpic.deleteSubTask(oldSubTask);
+                previousEpic.setStatus(previousEpic.calculateStatus());
+                previousEpic.createEpicDateTime();
+                epics.put(previousEpic.getId(), previousEpic);
+            }
+        }
 
-        prioritizedTasks.add(updatedSubTask);
+        addPrioritized(updatedSubTask);
 
-        Epic parentEpic = epics.get(updatedSubTask.getEpicId());
+        Epic parentEpic = epicForUpdate(updatedSubTask.getEpicId());
         if (parentEpic != null) {
-            parentEpic.createEpicDateTime();
             parentEpic.addSubTask(updatedSubTask);
+            parentEpic.setStatus(parentEpic.calculateStatus());
+            parentEpic.createEpicDateTime();
+            epics.put(parentEpic.getId(), parentEpic);
             updateEpic(parentEpic);
         }
     }
@@ -202,7 +347,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (!tasks.containsKey(id)) {
             throw new IllegalArgumentException("Задача с таким ID отсутствует.");
         }
-        prioritizedTasks.remove(tasks.get(id));
+        removePrioritized(tasks.get(id));
         tasks.remove(id);
         historyManager.remove(id);
     }
@@ -214,11 +359,14 @@ public class InMemoryTaskManager implements TaskManager {
         }
         Epic saved = epics.get(id);
         for (SubTask subTaskIdForDelete : saved.getSubTasks()) {
+            removePrioritized(subTaskIdForDelete);
             subTasks.remove(subTaskIdForDelete.getId());
             historyManager.remove(subTaskIdForDelete.getId());
         }
         epics.remove(id);
+        epicSubTaskIds.remove(id);
         historyManager.remove(id);
+        markModified();
     }
 
     @Override
@@ -227,21 +375,23 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Подзадача с таким ID отсутствует.");
         }
         SubTask subTask = subTasks.get(id);
-        prioritizedTasks.remove(subTask);
+        removePrioritized(subTask);
         int savedEpicId = subTask.getEpicId();
-        Epic savedEpic = epics.get(savedEpicId);
+        Epic savedEpic = epicForUpdate(savedEpicId);
         subTasks.remove(id);
+        unlinkSubTask(subTask);
 
         savedEpic.deleteSubTask(subTask);
         savedEpic.setStatus(savedEpic.calculateStatus());
         savedEpic.createEpicDateTime();
+        epics.put(savedEpicId, savedEpic);
         historyManager.remove(id);
     }
 
     @Override
     public void deleteAllTasks() {
         tasks.values().forEach(task -> {
-            prioritizedTasks.remove(task);
+            removePrioritized(task);
             historyManager.remove(task.getId());
         });
         tasks.clear();
@@ -253,47 +403,157 @@ public class InMemoryTaskManager implements TaskManager {
                 historyManager.remove(epic.getId()));
 
         subTasks.values().forEach(subTask -> {
-            prioritizedTasks.remove(subTask);
+            removePrioritized(subTask);
             historyManager.remove(subTask.getId());
         });
 
         epics.clear();
         subTasks.clear();
+        epicSubTaskIds.clear();
+        markModified();
     }
 
     @Override
     public void deleteAllSubTasks() {
         subTasks.values().forEach(subTask -> {
-            prioritizedTasks.remove(subTask);
+            removePrioritized(subTask);
             historyManager.remove(subTask.getId());
         });
 
         subTasks.clear();
+        epicSubTaskIds.clear();
 
-        epics.values().forEach(epic -> {
+        epics.forEachKey(id -> {
+            Epic epic = epicForUpdate(id);
             epic.removeSubTasksList();
             epic.setStatus(epic.calculateStatus());
             epic.createEpicDateTime();
+            epics.put(id, epic);
         });
     }
 
+    /**
+     * Returns the epic a mutation should change, or null if there is none. The caller puts it back into
+     * {@link #epics} once the change is complete. Here it is the stored instance itself; managers with
+     * lock-free readers return a private copy, so readers never see an epic in the middle of a change.
+     */
+    protected Epic epicForUpdate(int id) {
+
+        return epics.get(id);
+    }
+
     @Override
     public List<SubTask> getEpicSubtasks(int epicId) {
-        return subTasks.values().stream()
-                .filter(subTask -> subTask.getEpicId() == epicId)
-                .collect(Collectors.toList());
+        Set<Integer> ids = epicSubTaskIds.get(epicId);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<SubTask> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            SubTask subTask = subTasks.get(id);
+            if (subTask != null) {
+                result.add(subTask);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the id set for one epic in {@link #epicSubTaskIds}; concurrent managers return a thread-safe set.
+     */
+    protected Set<Integer> newSubTaskIdSet() {
+
+        return new LinkedHashSet<>();
+    }
+
+    private void linkSubTask(SubTask subTask) {
+
+        epicSubTaskIds.computeIfAbsent(subTask.getEpicId(), epicId -> newSubTaskIdSet()).add(subTask.getId());
+    }
+
+    private void unlinkSubTask(SubTask subTask) {
+        Set<Integer> ids = epicSubTaskIds.get(subTask.getEpicId());
+        if (ids != null) {
+            ids.remove(subTask.getId());
+            if (ids.isEmpty()) {
+                epicSubTaskIds.remove(subTask.getEpicId());
+            }
+        }
     }
 
+    /**
+     * Copies the cached prioritized order, so the caller gets its own list without the tree being walked.
+     */
     @Override
     public List<Task> getPrioritizedTasks() {
 
-        return new ArrayList<>(prioritizedTasks);
+        return new ArrayList<>(getPrioritizedSnapshot().tasks());
+    }
+
+    /**
+     * Walks only the part of the prioritized tree inside [from, to), so the cost is O(log n + k).
+     */
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Лимит должен быть положительным: " + limit);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало интервала позже его конца.");
+        }
+        NavigableSet<Task> range = prioritizedTasks;
+        if (from != null) {
+            range = range.tailSet(rangeBound(from), true);
+        }
+        if (to != null) {
+            range = range.headSet(rangeBound(to), false);
+        }
+        List<Task> result = new ArrayList<>(Math.min(limit, 64));
+        for (Task task : range) {
+            if (task.getStartTime() == null || result.size() == limit) {
+                break;
+            }
+            result.add(task);
+        }
+        return result;
+    }
+
+    /**
+     * Probe that sorts before every task starting at {@code time}; no real task has the minimal id.
+     */
+    private static Task rangeBound(LocalDateTime time) {
+
+        return new Task(Integer.MIN_VALUE, null, null, time);
+    }
+
+    /**
+     * Returns the cached prioritized order, copying the tree only after it changed since the last call.
+     */
+    @Override
+    public PrioritizedSnapshot getPrioritizedSnapshot() {
+        PrioritizedSnapshot snapshot = prioritizedSnapshot;
+        if (snapshot == null) {
+            snapshot = new PrioritizedSnapshot(prioritizedVersion, new ArrayList<>(prioritizedTasks));
+            prioritizedSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the current snapshot if it is still valid, or null if it has to be rebuilt.
+     */
+    protected PrioritizedSnapshot cachedPrioritizedSnapshot() {
+
+        return prioritizedSnapshot;
     }
 
     Comparator<Task> taskComparator = (o1, o2) -> {
         if (o1.getId() == o2.getId()) {
             return 0;
         }
+        if (o1.getStartTime() == null && o2.getStartTime() == null) {
+            return Integer.compare(o1.getId(), o2.getId());
+        }
         if (o1.getStartTime() == null) {
             return 1;
         }
@@ -301,7 +561,7 @@ public class InMemoryTaskManager implements TaskManager {
             return -1;
         }
 
-        int startTimeComparison = o1.getStartTime().compareTo(o2.getStartTime());
+        int startTimeComparison = o1.compareStartTime(o2);
         if (startTimeComparison != 0) {
             return startTimeComparison;
         }
@@ -310,27 +570,39 @@ public class InMemoryTaskManager implements TaskManager {
     };
 
     public boolean isTaskInvalid(Task task) {
-        if (prioritizedTasks.isEmpty()) {
-            return false;
-        }
 
-        LocalDateTime start = task.getStartTime();
-        LocalDateTime end = task.getEndTime();
+        return findOverlappingTask(task) != null;
+    }
 
-        if (start == null) {
-            return false;
+    public Task findOverlappingTask(Task task) {
+        if (task.getStartTime() == null) {
+            return null;
         }
+        return intervalIndex.findOverlapping(task);
+    }
 
-        for (Task prioritizedTask : prioritizedTasks) {
-            LocalDateTime prioritizedStart = prioritizedTask.getStartTime();
-            LocalDateTime prioritizedEnd = prioritizedTask.getEndTime();
+    protected void addPrioritized(Task task) {
+        prioritizedTasks.add(task);
+        intervalIndex.add(task);
+        invalidatePrioritized();
+    }
 
-            if (isOverlapping(start, end, prioritizedStart, prioritizedEnd)) {
-                return true;
-            }
-        }
+    protected void removePrioritized(Task task) {
+        prioritizedTasks.remove(task);
+        intervalIndex.remove(task.getId());
+        invalidatePrioritized();
+    }
 
-        return false;
+    private void invalidatePrioritized() {
+        prioritizedSnapshot = null;
+        prioritizedVersion++;
+        markModified();
+    }
+
+    // Every task and subtask change goes through the prioritized index; epic-only changes call this directly.
+    private void markModified() {
+
+        version++;
     }
 
     public boolean isOverlapping(LocalDateTime start, LocalDateTime end, LocalDateTime prioritizedStart, LocalDateTime prioritizedEnd) {
@@ -344,4 +616,85 @@ public class InMemoryTaskManager implements TaskManager {
         }
         return start.isBefore(prioritizedStart) && end.isAfter(prioritizedEnd);
     }
+
+    /**
+     * Read-only sorted set over an already ordered list. Handing it to an empty {@link TreeSet} with the same
+     * comparator lets the tree be built from sorted input in linear time.
+     */
+    private static final class SortedListView extends AbstractSet<Task> implements SortedSet<Task> {
+        private final List<Task> tasks;
+        private final Comparator<Task> comparator;
+
+        SortedListView(List<Task> tasks, Comparator<Task> comparator) {
+            this.tasks = tasks;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+
+            return Collections.unmodifiableList(tasks).iterator();
+        }
+
+        @Override
+        public int size() {
+
+            return tasks.size();
+        }
+
+        @Override
+        public Comparator<? super Task> comparator() {
+
+            return comparator;
+        }
+
+        @Override
+        public Task first() {
+            if (tasks.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return tasks.getFirst();
+        }
+
+        @Override
+        public Task last() {
+            if (tasks.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return tasks.getLast();
+        }
+
+        @Override
+        public SortedSet<Task> subSet(Task fromElement, Task toElement) {
+            if (comparator.compare(fromElement, toElement) > 0) {
+                throw new IllegalArgumentException("Начало диапазона больше его конца.");
+            }
+            return view(indexOf(fromElement), indexOf(toElement));
+        }
+
+        @Override
+        public SortedSet<Task> headSet(Task toElement) {
+
+            return view(0, indexOf(toElement));
+        }
+
+        @Override
+        public SortedSet<Task> tailSet(Task fromElement) {
+
+            return view(indexOf(fromElement), tasks.size());
+        }
+
+        /**
+         * Index of the first task not ordered before {@code element}.
+         */
+        private int indexOf(Task element) {
+            int index = Collections.binarySearch(tasks, element, comparator);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        private SortedSet<Task> view(int from, int to) {
+
+            return new SortedListView(tasks.subList(from, to), comparator);
+        }
+    }
 }
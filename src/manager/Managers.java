@@ -1,5 +1,7 @@
 package manager;
 
+import manager.store.OffHeapTaskStore;
+
 public class Managers {
 
     public static TaskManager getDefaultInMemoryManager() {
@@ -7,6 +9,21 @@ public class Managers {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    public static TaskManager getDefaultConcurrentManager() {
+
+        return new ConcurrentTaskManager(getDefaultHistory());
+    }
+
+    public static TaskManager getDefaultCompactManager() {
+
+        return new CompactTaskManager(getDefaultHistory());
+    }
+
+    public static TaskManager getDefaultOffHeapManager() {
+
+        return new CompactTaskManager(getDefaultHistory(), new OffHeapTaskStore());
+    }
+
     public static HistoryManager getDefaultHistory() {
 
         return new InMemoryHistoryManager();
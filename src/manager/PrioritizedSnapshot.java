@@ -0,0 +1,18 @@
+package manager;
+
+import tasks.Task;
+
+import java.util.List;
+
+/**
+ * Immutable prioritized order of tasks, tagged with the version of the manager state it was taken from.
+ * The version grows with every change to the prioritized set, so two snapshots with the same version hold
+ * the same tasks in the same order. {@link #UNVERSIONED} marks snapshots that must not be cached.
+ */
+public record PrioritizedSnapshot(long version, List<Task> tasks) {
+    public static final long UNVERSIONED = -1;
+
+    public PrioritizedSnapshot {
+        tasks = List.copyOf(tasks);
+    }
+}
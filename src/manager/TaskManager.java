@@ -4,6 +4,9 @@ import tasks.Task;
 import tasks.Epic;
 import tasks.SubTask;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public interface TaskManager {
@@ -13,6 +16,26 @@ public interface TaskManager {
 
     List<SubTask> getAllSubTasks();
 
+    /**
+     * Returns up to {@code limit} tasks with ids greater than {@code afterId}, in id order. Passing the id of the
+     * last task of a page as {@code afterId} yields the next page. This default sorts the full list; managers
+     * with an id-ordered index read only the page.
+     */
+    default List<Task> getTasksPage(int afterId, int limit) {
+
+        return pageOf(getAllTasks(), afterId, limit);
+    }
+
+    default List<Epic> getEpicsPage(int afterId, int limit) {
+
+        return pageOf(getAllEpics(), afterId, limit);
+    }
+
+    default List<SubTask> getSubTasksPage(int afterId, int limit) {
+
+        return pageOf(getAllSubTasks(), afterId, limit);
+    }
+
     Task createTask(Task task);
 
     Epic createEpic(Epic epic);
@@ -23,6 +46,15 @@ public interface TaskManager {
 
     Epic getEpic(int id);
 
+    /**
+     * Whether an epic with this id exists. Unlike {@link #getEpic(int)}, this does not count as a view and leaves
+     * the history untouched.
+     */
+    default boolean hasEpic(int id) {
+
+        return getAllEpics().stream().anyMatch(epic -> epic.getId() == id);
+    }
+
     SubTask getSubTask(int id);
 
     void updateTask(Task task);
@@ -47,5 +79,72 @@ public interface TaskManager {
 
     List<Task> getHistory();
 
+    /**
+     * Returns tasks and subtasks ordered by start time, those without a start time last, as a new list that the
+     * caller may modify. {@link #getPrioritizedSnapshot()} shares one immutable list between callers instead.
+     */
     List<Task> getPrioritizedTasks();
+
+    /**
+     * Returns up to {@code limit} prioritized tasks starting in [from, to), in priority order. A null bound
+     * leaves that side open; tasks without a start time are never returned. This default filters the full
+     * prioritized list; managers with an ordered index answer from it directly.
+     */
+    default List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Лимит должен быть положительным: " + limit);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало интервала позже его конца.");
+        }
+        List<Task> result = new ArrayList<>();
+        for (Task task : getPrioritizedTasks()) {
+            LocalDateTime start = task.getStartTime();
+            if (start == null || to != null && !start.isBefore(to) || result.size() == limit) {
+                break;
+            }
+            if (from == null || !start.isBefore(from)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the prioritized tasks with the version they belong to. Managers that do not track versions
+     * return an {@link PrioritizedSnapshot#UNVERSIONED} snapshot.
+     */
+    default PrioritizedSnapshot getPrioritizedSnapshot() {
+
+        return new PrioritizedSnapshot(PrioritizedSnapshot.UNVERSIONED, getPrioritizedTasks());
+    }
+
+    /**
+     * Returns a counter that grows with every change to tasks, epics or subtasks, so an unchanged value means
+     * the collections and the prioritized list are unchanged. Read it before the data it should describe.
+     * Managers that do not track changes return {@link PrioritizedSnapshot#UNVERSIONED}.
+     */
+    default long getVersion() {
+
+        return PrioritizedSnapshot.UNVERSIONED;
+    }
+
+    /**
+     * Like {@link #getVersion()}, for the order of the view history, which also changes on reads by id.
+     */
+    default long getHistoryVersion() {
+
+        return PrioritizedSnapshot.UNVERSIONED;
+    }
+
+    private static <T extends Task> List<T> pageOf(List<T> all, int afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Лимит должен быть положительным: " + limit);
+        }
+        return all.stream()
+                .filter(task -> task.getId() > afterId)
+                .sorted(Comparator.comparingInt(Task::getId))
+                .limit(limit)
+                .toList();
+    }
 }
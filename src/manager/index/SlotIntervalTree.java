@@ -0,0 +1,211 @@
+package manager.index;
+
+import manager.store.TaskStore;
+import manager.util.IntList;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Treap over {@link TaskStore} slots ordered by (start, id), with child links kept in primitive arrays
+ * indexed by slot instead of node objects.
+ * <p>
+ * Task managers reject overlapping time slots, so the indexed intervals are disjoint and ordering by start
+ * also orders them by end. An overlap check then only needs the last interval starting at or before the
+ * candidate's end, which keeps the tree free of per-node subtree maxima.
+ */
+public class SlotIntervalTree {
+    private static final int NIL = -1;
+    private static final int UNLINKED = -2;
+    private final TaskStore store;
+    private int[] left = new int[0];
+    private int[] right = new int[0];
+    private int root = NIL;
+    private int size;
+
+    public SlotIntervalTree(TaskStore store) {
+
+        this.store = store;
+    }
+
+    public void add(int slot) {
+        ensureCapacity(slot);
+        if (left[slot] != UNLINKED) {
+            remove(slot);
+        }
+        left[slot] = NIL;
+        right[slot] = NIL;
+        root = insert(root, slot);
+        size++;
+    }
+
+    public void remove(int slot) {
+        if (!contains(slot)) {
+            return;
+        }
+        root = delete(root, slot);
+        left[slot] = UNLINKED;
+        size--;
+    }
+
+    public boolean contains(int slot) {
+
+        return slot < left.length && left[slot] != UNLINKED;
+    }
+
+    public int size() {
+
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(left, UNLINKED);
+        root = NIL;
+        size = 0;
+    }
+
+    /**
+     * Replaces the contents with the given slots in linear time; they must already be ordered by (start, id).
+     */
+    public void build(int[] sortedSlots) {
+        clear();
+        IntList rightSpine = new IntList();
+        int previous = NIL;
+        for (int slot : sortedSlots) {
+            ensureCapacity(slot);
+            if (previous != NIL && !less(previous, slot)) {
+                clear();
+                throw new IllegalArgumentException("Слоты должны быть отсортированы по времени начала: " + slot);
+            }
+            int last = NIL;
+            while (!rightSpine.isEmpty() && priority(rightSpine.get(rightSpine.size() - 1)) < priority(slot)) {
+                last = rightSpine.removeLast();
+            }
+            left[slot] = last;
+            right[slot] = NIL;
+            if (!rightSpine.isEmpty()) {
+                right[rightSpine.get(rightSpine.size() - 1)] = slot;
+            }
+            rightSpine.add(slot);
+            previous = slot;
+        }
+        root = rightSpine.isEmpty() ? NIL : rightSpine.get(0);
+        size = sortedSlots.length;
+    }
+
+    /**
+     * Returns a slot whose interval intersects [start, end], or -1 if there is none.
+     */
+    public int findOverlapping(long start, long end) {
+        int candidate = NIL;
+        int node = root;
+        while (node != NIL) {
+            if (store.start(node) <= end) {
+                candidate = node;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return candidate != NIL && store.end(candidate) >= start ? candidate : NIL;
+    }
+
+    /**
+     * Visits the slots in (start, id) order.
+     */
+    public void forEachInOrder(IntConsumer action) {
+        IntList stack = new IntList();
+        int node = root;
+        while (node != NIL || !stack.isEmpty()) {
+            while (node != NIL) {
+                stack.add(node);
+                node = left[node];
+            }
+            node = stack.removeLast();
+            action.accept(node);
+            node = right[node];
+        }
+    }
+
+    private int insert(int node, int slot) {
+        if (node == NIL) {
+            return slot;
+        }
+        if (less(slot, node)) {
+            left[node] = insert(left[node], slot);
+            if (priority(left[node]) > priority(node)) {
+                return rotateRight(node);
+            }
+        } else {
+            right[node] = insert(right[node], slot);
+            if (priority(right[node]) > priority(node)) {
+                return rotateLeft(node);
+            }
+        }
+        return node;
+    }
+
+    private int delete(int node, int slot) {
+        if (node == slot) {
+            return merge(left[node], right[node]);
+        }
+        if (less(slot, node)) {
+            left[node] = delete(left[node], slot);
+        } else {
+            right[node] = delete(right[node], slot);
+        }
+        return node;
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priority(a) > priority(b)) {
+            right[a] = merge(right[a], b);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        return b;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        return pivot;
+    }
+
+    private boolean less(int a, int b) {
+        int cmp = Long.compare(store.start(a), store.start(b));
+        return cmp != 0 ? cmp < 0 : store.id(a) < store.id(b);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot >= left.length) {
+            int oldLength = left.length;
+            int capacity = Math.max(slot + 1, oldLength + (oldLength >> 1) + 16);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            Arrays.fill(left, oldLength, capacity, UNLINKED);
+        }
+    }
+
+    private static int priority(int slot) {
+        int h = slot * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
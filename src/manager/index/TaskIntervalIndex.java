@@ -0,0 +1,255 @@
+package manager.index;
+
+import manager.util.IntHashMap;
+import manager.util.IntMap;
+import tasks.Task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Interval index over the time slots of prioritized tasks.
+ * <p>
+ * Nodes are kept in a treap ordered by (start, id); every node also tracks the largest end time
+ * of its subtree, so a search for a conflicting interval only descends one branch per level.
+ * Intervals are closed: tasks that touch at an endpoint are reported as overlapping.
+ * <p>
+ * Times are kept as UTC epoch seconds and nanos taken from the tasks' cached values, so searches and
+ * rebalancing compare primitives and allocate nothing.
+ */
+public class TaskIntervalIndex {
+    private final IntMap<Node> nodesById = new IntHashMap<>();
+    private Node root;
+
+    private static class Node {
+        final Task task;
+        final int id;
+        final int priority;
+        final long startSecond;
+        final int startNano;
+        final long endSecond;
+        final int endNano;
+        long maxEndSecond;
+        int maxEndNano;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.priority = mix(id);
+            this.startSecond = task.getStartEpochSecond();
+            this.startNano = task.getStartNano();
+            this.endSecond = task.getEndEpochSecond();
+            this.endNano = task.getEndNano();
+            this.maxEndSecond = endSecond;
+            this.maxEndNano = endNano;
+        }
+    }
+
+    public void add(Task task) {
+        remove(task.getId());
+        if (task.getStartTime() == null) {
+            return;
+        }
+        Node node = new Node(task);
+        root = insert(root, node);
+        nodesById.put(node.id, node);
+    }
+
+    public void remove(int id) {
+        Node node = nodesById.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    /**
+     * Replaces the contents of the index with the given tasks in linear time. The tasks must be ordered
+     * by start time and then by id; tasks without a start time are skipped wherever they appear.
+     */
+    public void build(Iterable<? extends Task> sortedTasks) {
+        clear();
+        Deque<Node> rightSpine = new ArrayDeque<>();
+        Node previous = null;
+        for (Task task : sortedTasks) {
+            if (task.getStartTime() == null) {
+                continue;
+            }
+            Node node = new Node(task);
+            if (previous != null && !less(previous, node)) {
+                clear();
+                throw new IllegalArgumentException("Задачи должны быть отсортированы по времени начала: " + node.id);
+            }
+            Node last = null;
+            while (!rightSpine.isEmpty() && rightSpine.peek().priority < node.priority) {
+                last = rightSpine.pop();
+            }
+            node.left = last;
+            if (!rightSpine.isEmpty()) {
+                rightSpine.peek().right = node;
+            }
+            rightSpine.push(node);
+            nodesById.put(node.id, node);
+            previous = node;
+        }
+        root = rightSpine.peekLast();
+        updateAll(root);
+    }
+
+    public void clear() {
+        nodesById.clear();
+        root = null;
+    }
+
+    public int size() {
+
+        return nodesById.size();
+    }
+
+    /**
+     * Returns any indexed task whose interval intersects [start, end], or null if there is none.
+     */
+    public Task findOverlapping(LocalDateTime start, LocalDateTime end) {
+
+        return findOverlapping(start.toEpochSecond(ZoneOffset.UTC), start.getNano(),
+                end.toEpochSecond(ZoneOffset.UTC), end.getNano());
+    }
+
+    /**
+     * Returns any indexed task whose interval intersects the time slot of the given task, or null if there is
+     * none. The task must have a start time.
+     */
+    public Task findOverlapping(Task task) {
+
+        return findOverlapping(task.getStartEpochSecond(), task.getStartNano(),
+                task.getEndEpochSecond(), task.getEndNano());
+    }
+
+    private Task findOverlapping(long startSecond, int startNano, long endSecond, int endNano) {
+        Node node = root;
+        while (node != null) {
+            if (compare(node.startSecond, node.startNano, endSecond, endNano) <= 0
+                    && compare(node.endSecond, node.endNano, startSecond, startNano) >= 0) {
+                return node.task;
+            }
+            if (node.left != null
+                    && compare(node.left.maxEndSecond, node.left.maxEndNano, startSecond, startNano) >= 0) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (less(node, root)) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority) {
+                root = rotateRight(root);
+            }
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority) {
+                root = rotateLeft(root);
+            }
+        }
+        update(root);
+        return root;
+    }
+
+    private static Node delete(Node root, Node node) {
+        if (root == node) {
+            return merge(root.left, root.right);
+        }
+        if (less(node, root)) {
+            root.left = delete(root.left, node);
+        } else {
+            root.right = delete(root.right, node);
+        }
+        update(root);
+        return root;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        update(node);
+        left.right = node;
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        update(node);
+        right.left = node;
+        update(right);
+        return right;
+    }
+
+    private static void updateAll(Node node) {
+        if (node == null) {
+            return;
+        }
+        updateAll(node.left);
+        updateAll(node.right);
+        update(node);
+    }
+
+    private static void update(Node node) {
+        node.maxEndSecond = node.endSecond;
+        node.maxEndNano = node.endNano;
+        raiseMaxEnd(node, node.left);
+        raiseMaxEnd(node, node.right);
+    }
+
+    private static void raiseMaxEnd(Node node, Node child) {
+        if (child != null && compare(child.maxEndSecond, child.maxEndNano, node.maxEndSecond, node.maxEndNano) > 0) {
+            node.maxEndSecond = child.maxEndSecond;
+            node.maxEndNano = child.maxEndNano;
+        }
+    }
+
+    private static boolean less(Node a, Node b) {
+        int cmp = compare(a.startSecond, a.startNano, b.startSecond, b.startNano);
+        return cmp != 0 ? cmp < 0 : a.id < b.id;
+    }
+
+    private static int compare(long secondA, int nanoA, long secondB, int nanoB) {
+        int cmp = Long.compare(secondA, secondB);
+        return cmp != 0 ? cmp : Integer.compare(nanoA, nanoB);
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,270 @@
+package manager.storage;
+
+import tasks.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary snapshot of tasks, epics and subtasks.
+ * <p>
+ * Layout: a header ({@code int} magic, {@code short} version) followed by blocks. Every block is
+ * {@code int} record count, {@code int} payload length, the payload and an {@code int} CRC32C of the payload;
+ * a block with zero records ends the file. A record is:
+ * <pre>
+ * byte  type ordinal
+ * byte  status ordinal
+ * byte  flags (1 - has start time, 2 - has duration)
+ * int   id
+ * int   epic id (subtasks only, otherwise 0)
+ * long  start epoch second (UTC), int start nanos       - if flag 1
+ * long  duration seconds, int duration nanos            - if flag 2
+ * int   name length in bytes (-1 for null), UTF-8 name bytes
+ * </pre>
+ */
+public final class BinarySnapshot {
+    public static final int MAGIC = 0x4B4E424E;
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+    private static final int BLOCK_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int FIXED_RECORD_SIZE = 3 + 2 * Integer.BYTES + 2 * (Long.BYTES + Integer.BYTES) + Integer.BYTES;
+    private static final byte HAS_START = 1;
+    private static final byte HAS_DURATION = 2;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinarySnapshot() {
+    }
+
+    public static boolean isBinary(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            readFully(channel, header);
+            return header.flip().getInt() == MAGIC;
+        }
+    }
+
+    public static void write(Path path, Iterable<? extends Task> tasks, Iterable<? extends Task> epics,
+                             Iterable<? extends Task> subTasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).flip();
+            writeFully(channel, header);
+
+            BlockWriter writer = new BlockWriter(channel);
+            writer.writeAll(tasks);
+            writer.writeAll(epics);
+            writer.writeAll(subTasks);
+            writer.finish();
+        }
+    }
+
+    public static void read(Path path, Consumer<Task> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Файл не является бинарным снимком задач.");
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия снимка: " + version);
+            }
+
+            ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+            ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+            CRC32C crc = new CRC32C();
+            while (true) {
+                blockHeader.clear();
+                readFully(channel, blockHeader);
+                blockHeader.flip();
+                int count = blockHeader.getInt();
+                int length = blockHeader.getInt();
+                if (count == 0) {
+                    return;
+                }
+                if (length + Integer.BYTES > block.capacity()) {
+                    block = ByteBuffer.allocateDirect(length + Integer.BYTES);
+                }
+                block.clear().limit(length + Integer.BYTES);
+                readFully(channel, block);
+                block.flip().limit(length);
+
+                crc.reset();
+                crc.update(block);
+                block.limit(length + Integer.BYTES);
+                if ((int) crc.getValue() != block.getInt(length)) {
+                    throw new IOException("Контрольная сумма блока снимка не совпадает.");
+                }
+                block.position(0).limit(length);
+                for (int i = 0; i < count; i++) {
+                    sink.accept(readRecord(block));
+                }
+            }
+        }
+    }
+
+    /**
+     * Upper bound of the size of a record whose name encodes to {@code name}.
+     */
+    static int recordSize(byte[] name) {
+
+        return FIXED_RECORD_SIZE + (name == null ? 0 : name.length);
+    }
+
+    static byte[] encodeName(Task task) {
+
+        return task.getName() == null ? null : task.getName().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void putRecord(ByteBuffer buffer, Task task, byte[] name) {
+        LocalDateTime startTime = task.getStartTime();
+        Duration duration = task.getDuration();
+        byte flags = (byte) ((startTime != null ? HAS_START : 0) | (duration != null ? HAS_DURATION : 0));
+        buffer.put((byte) task.getType().ordinal());
+        buffer.put((byte) task.getStatus().ordinal());
+        buffer.put(flags);
+        buffer.putInt(task.getId());
+        buffer.putInt(task instanceof SubTask subTask ? subTask.getEpicId() : 0);
+        if (startTime != null) {
+            buffer.putLong(startTime.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(startTime.getNano());
+        }
+        if (duration != null) {
+            buffer.putLong(duration.getSeconds());
+            buffer.putInt(duration.getNano());
+        }
+        if (name == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(name.length);
+            buffer.put(name);
+        }
+    }
+
+    static Task readRecord(ByteBuffer buffer) {
+        TaskType type = TYPES[buffer.get()];
+        TaskStatus status = STATUSES[buffer.get()];
+        byte flags = buffer.get();
+        int id = buffer.getInt();
+        int epicId = buffer.getInt();
+        LocalDateTime startTime = null;
+        if ((flags & HAS_START) != 0) {
+            startTime = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        }
+        Duration duration = null;
+        if ((flags & HAS_DURATION) != 0) {
+            duration = Duration.ofSeconds(buffer.getLong(), buffer.getInt());
+        }
+        String name = null;
+        int nameLength = buffer.getInt();
+        if (nameLength >= 0) {
+            byte[] bytes = new byte[nameLength];
+            buffer.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Task task = switch (type) {
+            case TASK -> new Task(id, name, duration, startTime);
+            case EPIC -> {
+                Epic epic = new Epic(id, name);
+                epic.setStartTime(startTime);
+                epic.setDuration(duration);
+                yield epic;
+            }
+            case SUBTASK -> new SubTask(id, name, epicId, duration, startTime);
+        };
+        task.setStatus(status);
+        return task;
+    }
+
+    private static class BlockWriter {
+        private final FileChannel channel;
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        private int count;
+
+        BlockWriter(FileChannel channel) {
+            this.channel = channel;
+            block.position(BLOCK_HEADER_SIZE);
+        }
+
+        void writeAll(Iterable<? extends Task> tasks) throws IOException {
+            for (Task task : tasks) {
+                write(task);
+            }
+        }
+
+        void write(Task task) throws IOException {
+            byte[] name = encodeName(task);
+            int size = recordSize(name);
+            if (block.remaining() < size + Integer.BYTES) {
+                if (count > 0) {
+                    flush();
+                }
+                if (block.remaining() < size + Integer.BYTES) {
+                    block = ByteBuffer.allocateDirect(BLOCK_HEADER_SIZE + size + Integer.BYTES);
+                    block.position(BLOCK_HEADER_SIZE);
+                }
+            }
+
+            putRecord(block, task, name);
+            count++;
+        }
+
+        void finish() throws IOException {
+            if (count > 0) {
+                flush();
+            }
+            flush();
+        }
+
+        /**
+         * Writes the pending block; called on an empty block it writes the terminating block.
+         */
+        private void flush() throws IOException {
+            int length = block.position() - BLOCK_HEADER_SIZE;
+            block.putInt(0, count);
+            block.putInt(Integer.BYTES, length);
+
+            crc.reset();
+            crc.update(block.duplicate().position(BLOCK_HEADER_SIZE).limit(BLOCK_HEADER_SIZE + length));
+            block.putInt((int) crc.getValue());
+
+            block.flip();
+            writeFully(channel, block);
+            block.clear().position(BLOCK_HEADER_SIZE);
+            count = 0;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Неожиданный конец файла снимка.");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package manager.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streaming reader for CSV snapshots. The file is read in fixed-size chunks cut on line boundaries; every chunk
+ * is parsed on a fork-join pool while the next one is being read, and parsed records are handed to the sink
+ * on the calling thread in file order. At most {@code 2 * parallelism} chunks are in flight, so memory use is
+ * bounded by the chunk size rather than by the file size.
+ * <p>
+ * The first line of the file is treated as a header and skipped, as are blank lines. The parser must be
+ * thread-safe; the sink is only called from the thread that invoked {@link #read(Path, Function, Consumer)}.
+ */
+public class CsvSnapshotReader {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxInFlight;
+
+    public CsvSnapshotReader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public CsvSnapshotReader(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = Math.max(2, 2 * pool.getParallelism());
+    }
+
+    public <T> void read(Path path, Function<String, T> parser, Consumer<T> sink) throws IOException {
+        Deque<ForkJoinTask<List<T>>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            byte[] buffer = new byte[chunkSize];
+            int filled = 0;
+            boolean header = true;
+            boolean eof = false;
+            while (!eof) {
+                int read = channel.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled));
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    filled += read;
+                    if (filled < buffer.length) {
+                        continue;
+                    }
+                }
+
+                int end = eof ? filled : lastLineEnd(buffer, filled);
+                if (end < 0) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                int start = 0;
+                if (header) {
+                    start = lineEnd(buffer, 0, end);
+                    header = false;
+                }
+                if (start < end) {
+                    byte[] chunk = Arrays.copyOfRange(buffer, start, end);
+                    inFlight.addLast(pool.submit(() -> parse(chunk, parser)));
+                    if (inFlight.size() >= maxInFlight) {
+                        drain(inFlight.removeFirst(), sink);
+                    }
+                }
+
+                filled -= end;
+                System.arraycopy(buffer, end, buffer, 0, filled);
+                if (buffer.length > chunkSize && filled < chunkSize) {
+                    buffer = Arrays.copyOf(buffer, chunkSize);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                drain(inFlight.removeFirst(), sink);
+            }
+        } finally {
+            inFlight.forEach(task -> task.cancel(true));
+        }
+    }
+
+    private static <T> void drain(ForkJoinTask<List<T>> task, Consumer<T> sink) {
+        for (T record : task.join()) {
+            sink.accept(record);
+        }
+    }
+
+    private static <T> List<T> parse(byte[] chunk, Function<String, T> parser) {
+        String text = new String(chunk, StandardCharsets.UTF_8);
+        List<T> records = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            int lineEnd = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+            String line = text.substring(start, lineEnd);
+            if (!line.isBlank()) {
+                records.add(parser.apply(line));
+            }
+            start = end + 1;
+        }
+        return records;
+    }
+
+    /**
+     * Returns the offset just past the first line break at or after {@code from}, or {@code limit} if there is none.
+     */
+    private static int lineEnd(byte[] buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Returns the offset just past the last line break in the buffer, or -1 if it holds no complete line.
+     */
+    private static int lastLineEnd(byte[] buffer, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
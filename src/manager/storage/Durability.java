@@ -0,0 +1,16 @@
+package manager.storage;
+
+public enum Durability {
+    /**
+     * A mutation returns once its record has been written and fsynced. Concurrent mutations share one fsync.
+     */
+    SYNC,
+    /**
+     * A mutation returns immediately; records are fsynced at least every sync interval.
+     */
+    PERIODIC,
+    /**
+     * A mutation returns once its record has been handed to the OS, without fsync.
+     */
+    OS_BUFFERED
+}
@@ -0,0 +1,132 @@
+package manager.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of viewed task ids, one id per line. Replaying it through a history manager restores
+ * the viewing order; {@link #rewrite(List)} replaces the log with the current history once it grows stale.
+ * A rewrite does not hold appends back: ids appended after {@link #beginRewrite()} still go to the old log
+ * and are copied into the new one just before it takes the old one's place.
+ */
+public class HistoryLog implements Closeable {
+    private static final int REWRITE_SLACK = 1024;
+    private final Path path;
+    private FileChannel channel;
+    private int records;
+    private int rewriteThreshold = REWRITE_SLACK;
+    private List<Integer> pending;
+
+    public HistoryLog(Path path) {
+
+        this.path = path;
+    }
+
+    public Path getPath() {
+
+        return path;
+    }
+
+    public synchronized int getRecords() {
+
+        return records;
+    }
+
+    /**
+     * Whether the log has grown well beyond the history it last described and should be rewritten.
+     */
+    public synchronized boolean isStale() {
+
+        return records > rewriteThreshold;
+    }
+
+    public synchronized List<Integer> read() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return ids;
+        }
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                ids.add(Integer.parseInt(line.trim()));
+            } catch (NumberFormatException ignored) {
+                // torn record at the tail of the log
+            }
+        }
+        records = ids.size();
+        rewriteThreshold = 2 * records + REWRITE_SLACK;
+        return ids;
+    }
+
+    public synchronized void append(int id) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((id + "\n").getBytes(StandardCharsets.US_ASCII));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        records++;
+        if (pending != null) {
+            pending.add(id);
+        }
+    }
+
+    /**
+     * Starts collecting appended ids for the next {@link #rewrite(List)}. Call it atomically with capturing the
+     * history the rewrite will write, so every later view is either in that history or collected here.
+     */
+    public synchronized void beginRewrite() {
+
+        pending = new ArrayList<>();
+    }
+
+    /**
+     * Replaces the log with {@code ids} followed by the ids appended since {@link #beginRewrite()}. The bulk of
+     * the file is written without holding the log, so appends only wait for the collected tail and the rename.
+     */
+    public void rewrite(List<Integer> ids) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, format(ids), StandardCharsets.US_ASCII);
+        synchronized (this) {
+            try {
+                List<Integer> tail = pending != null ? pending : List.of();
+                Files.writeString(temp, format(tail), StandardCharsets.US_ASCII, StandardOpenOption.APPEND);
+                close();
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                records = ids.size() + tail.size();
+                rewriteThreshold = 2 * records + REWRITE_SLACK;
+            } finally {
+                pending = null;
+            }
+        }
+    }
+
+    private static String format(List<Integer> ids) {
+        StringBuilder content = new StringBuilder(ids.size() * 6);
+        for (int id : ids) {
+            content.append(id).append('\n');
+        }
+        return content.toString();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
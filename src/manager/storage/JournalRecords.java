@@ -0,0 +1,169 @@
+package manager.storage;
+
+import tasks.Task;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary records of the task journal.
+ * <p>
+ * Every record is {@code int} payload length, {@code int} CRC32C of the payload and the payload:
+ * <pre>
+ * byte  operation (1 - put, 2 - delete, 3 - clear)
+ * byte  type ordinal
+ * put:    a {@link BinarySnapshot} task record
+ * delete: int id
+ * </pre>
+ * Names are stored as length-prefixed bytes, so any name round-trips. A crash may leave the last record
+ * incomplete; {@link #replay} drops such a record and cuts it off the file. Damage anywhere before the last
+ * record means acknowledged writes were lost, and replay fails instead of skipping it.
+ */
+public final class JournalRecords {
+    private static final Logger logger = Logger.getLogger(JournalRecords.class.getName());
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final TaskType[] TYPES = TaskType.values();
+
+    /**
+     * Receives the replayed operations in journal order.
+     */
+    public interface Sink {
+        void put(Task task);
+
+        void delete(TaskType type, int id);
+
+        void clear(TaskType type);
+    }
+
+    private JournalRecords() {
+    }
+
+    public static byte[] put(Task task) {
+        byte[] name = BinarySnapshot.encodeName(task);
+        ByteBuffer payload = ByteBuffer.allocate(2 + BinarySnapshot.recordSize(name));
+        payload.put(PUT).put((byte) task.getType().ordinal());
+        BinarySnapshot.putRecord(payload, task, name);
+        return frame(payload.flip());
+    }
+
+    public static byte[] delete(TaskType type, int id) {
+
+        return frame(ByteBuffer.allocate(2 + Integer.BYTES).put(DELETE).put((byte) type.ordinal()).putInt(id).flip());
+    }
+
+    public static byte[] clear(TaskType type) {
+
+        return frame(ByteBuffer.allocate(2).put(CLEAR).put((byte) type.ordinal()).flip());
+    }
+
+    /**
+     * Replays the journal into {@code sink} and returns the number of records applied. An incomplete or damaged
+     * last record is dropped and truncated away, so that later appends follow the last good record.
+     *
+     * @throws IOException if a record before the last one is damaged
+     */
+    public static int replay(Path path, Sink sink) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32C crc = new CRC32C();
+        int records = 0;
+        while (data.hasRemaining()) {
+            int offset = data.position();
+            ByteBuffer payload = nextPayload(data, crc);
+            if (payload == null) {
+                if (!isTail(data, offset)) {
+                    throw new IOException("Журнал повреждён: запись по смещению " + offset
+                            + " не прошла проверку контрольной суммы: " + path);
+                }
+                logger.warning("Отброшена неполная последняя запись журнала по смещению " + offset + ": " + path);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(offset);
+                }
+                break;
+            }
+            try {
+                apply(payload, sink);
+            } catch (RuntimeException e) {
+                throw new IOException("Журнал повреждён: не удалось разобрать запись по смещению " + offset
+                        + ": " + path, e);
+            }
+            records++;
+        }
+        return records;
+    }
+
+    private static byte[] frame(ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.remaining());
+        record.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload);
+        return record.array();
+    }
+
+    /**
+     * Returns the payload of the record at the current position and moves past it, or {@code null} when the
+     * record is incomplete or fails its checksum.
+     */
+    private static ByteBuffer nextPayload(ByteBuffer data, CRC32C crc) {
+        if (data.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int length = data.getInt();
+        int checksum = data.getInt();
+        if (length < 2 || length > data.remaining()) {
+            return null;
+        }
+        ByteBuffer payload = data.slice(data.position(), length);
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        data.position(data.position() + length);
+        return payload;
+    }
+
+    /**
+     * Whether the damaged record at {@code offset} is the last thing in the file: its header is cut short,
+     * it runs up to or past the end of the file, or the file is zero-filled from there on.
+     */
+    private static boolean isTail(ByteBuffer data, int offset) {
+        int limit = data.limit();
+        if (limit - offset < HEADER_SIZE) {
+            return true;
+        }
+        int length = data.getInt(offset);
+        if (length >= 0 && (long) offset + HEADER_SIZE + length >= limit) {
+            return true;
+        }
+        for (int i = offset; i < limit; i++) {
+            if (data.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void apply(ByteBuffer payload, Sink sink) {
+        byte operation = payload.get();
+        TaskType type = TYPES[payload.get()];
+        switch (operation) {
+            case PUT -> sink.put(BinarySnapshot.readRecord(payload));
+            case DELETE -> sink.delete(type, payload.getInt());
+            case CLEAR -> sink.clear(type);
+            default -> throw new IllegalArgumentException("Неизвестная операция журнала: " + operation);
+        }
+        if (payload.hasRemaining()) {
+            throw new IllegalArgumentException("Лишние байты в записи журнала.");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package manager.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background writer for the task journal (group commit).
+ * <p>
+ * Callers only enqueue records. A single writer thread drains everything queued since its last pass
+ * and writes it with one gathering write followed, depending on {@link Durability}, by one fsync.
+ * Each {@link #append(byte[])} returns a future that completes once the record has reached that durability.
+ */
+public class JournalWriter implements Closeable {
+    private static final Logger logger = Logger.getLogger(JournalWriter.class.getName());
+
+    private final Path path;
+    private final Durability durability;
+    private final long syncIntervalNanos;
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition hasWork = queueLock.newCondition();
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+    private final Thread thread;
+    private List<PendingRecord> queue = new ArrayList<>();
+    private CompletableFuture<Void> lastAppend = CompletableFuture.completedFuture(null);
+    private boolean closed;
+    private FileChannel channel;
+    private long lastSync = System.nanoTime();
+
+    private static class PendingRecord {
+        final ByteBuffer data;
+        final CompletableFuture<Void> future;
+
+        PendingRecord(ByteBuffer data, CompletableFuture<Void> future) {
+            this.data = data;
+            this.future = future;
+        }
+    }
+
+    public JournalWriter(Path path, Durability durability, long syncIntervalMillis) {
+        this.path = path;
+        this.durability = durability;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.thread = new Thread(this::run, "journal-writer-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public CompletableFuture<Void> append(byte[] record) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        queueLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Журнал закрыт.");
+            }
+            queue.add(new PendingRecord(ByteBuffer.wrap(record), future));
+            lastAppend = future;
+            hasWork.signal();
+        } finally {
+            queueLock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * Returns a future that completes once every record appended so far has reached the configured durability.
+     */
+    public CompletableFuture<Void> whenDurable() {
+        queueLock.lock();
+        try {
+            return lastAppend;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the queued records and deletes the journal file. The caller must make sure nothing
+     * is appended concurrently.
+     */
+    public void reset() throws IOException {
+        try {
+            whenDurable().join();
+        } catch (CompletionException e) {
+            logger.log(Level.WARNING, "Журнал сброшен после ошибки записи", e.getCause());
+        }
+        ioLock.lock();
+        try {
+            closeChannel();
+            Files.deleteIfExists(path);
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        queueLock.lock();
+        try {
+            closed = true;
+            hasWork.signal();
+        } finally {
+            queueLock.unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            closeChannel();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<PendingRecord> batch;
+            boolean stopping;
+            queueLock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    if (unsynced.isEmpty()) {
+                        hasWork.await();
+                    } else {
+                        long wait = syncIntervalNanos - (System.nanoTime() - lastSync);
+                        if (wait <= 0) {
+                            break;
+                        }
+                        hasWork.awaitNanos(wait);
+                    }
+                }
+                batch = queue;
+                queue = new ArrayList<>();
+                stopping = closed;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                queueLock.unlock();
+            }
+
+            process(batch, stopping);
+            if (stopping) {
+                return;
+            }
+        }
+    }
+
+    private void process(List<PendingRecord> batch, boolean stopping) {
+        ioLock.lock();
+        try {
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+            switch (durability) {
+                case OS_BUFFERED -> complete(batch);
+                case SYNC -> {
+                    if (!batch.isEmpty()) {
+                        channel.force(false);
+                    }
+                    complete(batch);
+                }
+                case PERIODIC -> {
+                    for (PendingRecord record : batch) {
+                        unsynced.add(record.future);
+                    }
+                    long now = System.nanoTime();
+                    if (!unsynced.isEmpty() && (stopping || now - lastSync >= syncIntervalNanos)) {
+                        channel.force(false);
+                        lastSync = now;
+                        unsynced.forEach(future -> future.complete(null));
+                        unsynced.clear();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Ошибка при записи в журнал", e);
+            for (PendingRecord record : batch) {
+                record.future.completeExceptionally(e);
+            }
+            unsynced.forEach(future -> future.completeExceptionally(e));
+            unsynced.clear();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void write(List<PendingRecord> batch) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = batch.get(i).data;
+        }
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    private static void complete(List<PendingRecord> batch) {
+        for (PendingRecord record : batch) {
+            record.future.complete(null);
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package manager.storage;
+
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
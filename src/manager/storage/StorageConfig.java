@@ -0,0 +1,115 @@
+package manager.storage;
+
+/**
+ * Persistence settings of {@link manager.FileBackedTaskManager}. Instances are immutable; every {@code with*}
+ * method returns a copy.
+ */
+public class StorageConfig {
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 50;
+
+    private final StorageMode mode;
+    private final int compactionThreshold;
+    private final Durability durability;
+    private final long syncIntervalMillis;
+    private final SnapshotFormat snapshotFormat;
+
+    private StorageConfig(StorageMode mode, int compactionThreshold, Durability durability, long syncIntervalMillis,
+                          SnapshotFormat snapshotFormat) {
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("Порог компактации должен быть положительным.");
+        }
+        if (syncIntervalMillis < 1) {
+            throw new IllegalArgumentException("Интервал синхронизации должен быть положительным.");
+        }
+        this.mode = mode;
+        this.compactionThreshold = compactionThreshold;
+        this.durability = durability;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    /**
+     * Every mutation rewrites the whole snapshot file. The file is handed to the OS without fsync, as it always
+     * was; {@link Durability#SYNC} opts into forcing the snapshot and its directory entry on every mutation.
+     */
+    public static StorageConfig snapshot() {
+
+        return new StorageConfig(StorageMode.SNAPSHOT, DEFAULT_COMPACTION_THRESHOLD, Durability.OS_BUFFERED,
+                DEFAULT_SYNC_INTERVAL_MILLIS, SnapshotFormat.CSV);
+    }
+
+    /**
+     * Every mutation appends a record to the journal; the journal is folded into a fresh snapshot
+     * once it holds {@link #getCompactionThreshold()} records. Records are written with {@link Durability#SYNC}
+     * unless configured otherwise.
+     */
+    public static StorageConfig journal() {
+
+        return new StorageConfig(StorageMode.JOURNAL, DEFAULT_COMPACTION_THRESHOLD, Durability.SYNC,
+                DEFAULT_SYNC_INTERVAL_MILLIS, SnapshotFormat.CSV);
+    }
+
+    /**
+     * Records are kept in a memory-mapped slot file, so a mutation writes only its own slots and startup maps
+     * the file instead of parsing it. An existing snapshot and journal are migrated on first start.
+     * Slots are forced to disk according to {@link #getDurability()}.
+     */
+    public static StorageConfig mapped() {
+
+        return new StorageConfig(StorageMode.MAPPED, DEFAULT_COMPACTION_THRESHOLD, Durability.SYNC,
+                DEFAULT_SYNC_INTERVAL_MILLIS, SnapshotFormat.CSV);
+    }
+
+    public StorageConfig withCompactionThreshold(int compactionThreshold) {
+
+        return new StorageConfig(mode, compactionThreshold, durability, syncIntervalMillis, snapshotFormat);
+    }
+
+    public StorageConfig withDurability(Durability durability) {
+
+        return new StorageConfig(mode, compactionThreshold, durability, syncIntervalMillis, snapshotFormat);
+    }
+
+    /**
+     * Upper bound on the delay between a mutation and its fsync in {@link Durability#PERIODIC} mode.
+     */
+    public StorageConfig withSyncInterval(long syncIntervalMillis) {
+
+        return new StorageConfig(mode, compactionThreshold, durability, syncIntervalMillis, snapshotFormat);
+    }
+
+    /**
+     * Format used when writing snapshots. Loading detects the format of the existing file, so switching
+     * to {@link SnapshotFormat#BINARY} migrates a CSV snapshot on the next save.
+     */
+    public StorageConfig withSnapshotFormat(SnapshotFormat snapshotFormat) {
+
+        return new StorageConfig(mode, compactionThreshold, durability, syncIntervalMillis, snapshotFormat);
+    }
+
+    public StorageMode getMode() {
+
+        return mode;
+    }
+
+    public int getCompactionThreshold() {
+
+        return compactionThreshold;
+    }
+
+    public Durability getDurability() {
+
+        return durability;
+    }
+
+    public long getSyncIntervalMillis() {
+
+        return syncIntervalMillis;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+
+        return snapshotFormat;
+    }
+}
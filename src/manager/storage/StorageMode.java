@@ -0,0 +1,10 @@
+package manager.storage;
+
+public enum StorageMode {
+    SNAPSHOT,
+    JOURNAL,
+    /**
+     * Records live in fixed-size slots of a memory-mapped file; a mutation rewrites only the slots it touched.
+     */
+    MAPPED
+}
@@ -0,0 +1,294 @@
+package manager.store;
+
+import manager.util.IntList;
+import tasks.TaskStatus;
+import tasks.TaskType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Heap {@link TaskStore} that keeps every field in its own primitive array, indexed by slot.
+ * A record costs about 50 bytes plus its UTF-8 name, with no per-task objects.
+ * <p>
+ * Names are appended to an arena of large byte chunks and referenced by chunk, offset and length.
+ * Rewriting a slot with an unchanged name keeps its bytes. A rename or a release leaves the old bytes behind
+ * as dead bytes; once they outweigh the live ones, the live names are copied into a fresh arena.
+ */
+public class ColumnarTaskStore implements TaskStore {
+    private static final byte FREE = -1;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int ARENA_CHUNK_SIZE = 1 << 20;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private int[] ids;
+    private byte[] types;
+    private byte[] statuses;
+    private int[] epicIds;
+    private long[] starts;
+    private long[] ends;
+    private long[] durations;
+    private long[] nameRefs;
+    private int[] nameLengths;
+    private final IntList freeSlots = new IntList();
+    private final List<byte[]> arena = new ArrayList<>();
+    private int arenaPosition;
+    private long arenaBytes;
+    private long deadBytes;
+    private int slotLimit;
+    private int size;
+    private int nextId = 1;
+
+    public ColumnarTaskStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarTaskStore(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость должна быть положительной: " + capacity);
+        }
+        ids = new int[capacity];
+        types = new byte[capacity];
+        statuses = new byte[capacity];
+        epicIds = new int[capacity];
+        starts = new long[capacity];
+        ends = new long[capacity];
+        durations = new long[capacity];
+        nameRefs = new long[capacity];
+        nameLengths = new int[capacity];
+        Arrays.fill(types, FREE);
+    }
+
+    @Override
+    public int allocate() {
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.removeLast();
+        } else {
+            if (slotLimit == ids.length) {
+                grow();
+            }
+            slot = slotLimit++;
+        }
+        types[slot] = (byte) TaskType.TASK.ordinal();
+        nameLengths[slot] = -1;
+        size++;
+        return slot;
+    }
+
+    @Override
+    public void release(int slot) {
+        if (!isUsed(slot)) {
+            return;
+        }
+        types[slot] = FREE;
+        dropName(slot);
+        freeSlots.add(slot);
+        size--;
+    }
+
+    @Override
+    public int slotLimit() {
+
+        return slotLimit;
+    }
+
+    @Override
+    public boolean isUsed(int slot) {
+
+        return slot >= 0 && slot < slotLimit && types[slot] != FREE;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    @Override
+    public int id(int slot) {
+
+        return ids[slot];
+    }
+
+    @Override
+    public TaskType type(int slot) {
+
+        return TYPES[types[slot]];
+    }
+
+    @Override
+    public TaskStatus status(int slot) {
+
+        return STATUSES[statuses[slot]];
+    }
+
+    @Override
+    public int epicId(int slot) {
+
+        return epicIds[slot];
+    }
+
+    @Override
+    public long start(int slot) {
+
+        return starts[slot];
+    }
+
+    @Override
+    public long end(int slot) {
+
+        return ends[slot];
+    }
+
+    @Override
+    public long duration(int slot) {
+
+        return durations[slot];
+    }
+
+    @Override
+    public String name(int slot) {
+        int length = nameLengths[slot];
+        if (length <= 0) {
+            return length < 0 ? null : "";
+        }
+        long ref = nameRefs[slot];
+        return new String(arena.get((int) (ref >>> 32)), (int) ref, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(int slot, int id, TaskType type, TaskStatus status, int epicId, String name) {
+        ids[slot] = id;
+        types[slot] = (byte) type.ordinal();
+        statuses[slot] = (byte) status.ordinal();
+        epicIds[slot] = epicId;
+        if (name == null) {
+            dropName(slot);
+            return;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (!hasName(slot, bytes)) {
+            dropName(slot);
+            nameRefs[slot] = appendName(bytes);
+            nameLengths[slot] = bytes.length;
+            if (deadBytes >= ARENA_CHUNK_SIZE && deadBytes * 2 > arenaBytes) {
+                compactArena();
+            }
+        }
+    }
+
+    @Override
+    public void setStatus(int slot, TaskStatus status) {
+
+        statuses[slot] = (byte) status.ordinal();
+    }
+
+    @Override
+    public void setTiming(int slot, long start, long end, long duration) {
+        starts[slot] = start;
+        ends[slot] = end;
+        durations[slot] = duration;
+    }
+
+    @Override
+    public int nextId() {
+
+        return nextId;
+    }
+
+    @Override
+    public void setNextId(int nextId) {
+
+        this.nextId = nextId;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(types, 0, slotLimit, FREE);
+        freeSlots.clear();
+        arena.clear();
+        arenaPosition = 0;
+        arenaBytes = 0;
+        deadBytes = 0;
+        slotLimit = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of arena bytes held by names that no slot refers to any more.
+     */
+    public long deadNameBytes() {
+
+        return deadBytes;
+    }
+
+    private boolean hasName(int slot, byte[] bytes) {
+        if (nameLengths[slot] != bytes.length || bytes.length == 0) {
+            return nameLengths[slot] == bytes.length;
+        }
+        long ref = nameRefs[slot];
+        int offset = (int) ref;
+        return Arrays.equals(arena.get((int) (ref >>> 32)), offset, offset + bytes.length, bytes, 0, bytes.length);
+    }
+
+    private void dropName(int slot) {
+        if (nameLengths[slot] > 0) {
+            deadBytes += nameLengths[slot];
+        }
+        nameLengths[slot] = -1;
+    }
+
+    private long appendName(byte[] bytes) {
+
+        return appendName(bytes, 0, bytes.length);
+    }
+
+    private long appendName(byte[] source, int offset, int length) {
+        byte[] chunk = arena.isEmpty() ? null : arena.getLast();
+        if (chunk == null || arenaPosition + length > chunk.length) {
+            chunk = new byte[Math.max(ARENA_CHUNK_SIZE, length)];
+            arena.add(chunk);
+            arenaPosition = 0;
+        }
+        System.arraycopy(source, offset, chunk, arenaPosition, length);
+        long ref = ((long) (arena.size() - 1) << 32) | arenaPosition;
+        arenaPosition += length;
+        arenaBytes += length;
+        return ref;
+    }
+
+    /**
+     * Copies the names of used slots into a fresh arena and lets the old chunks, dead bytes included, go.
+     */
+    private void compactArena() {
+        List<byte[]> old = new ArrayList<>(arena);
+        arena.clear();
+        arenaPosition = 0;
+        arenaBytes = 0;
+        deadBytes = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (types[slot] != FREE && nameLengths[slot] > 0) {
+                long ref = nameRefs[slot];
+                nameRefs[slot] = appendName(old.get((int) (ref >>> 32)), (int) ref, nameLengths[slot]);
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1) + 1;
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        Arrays.fill(types, slotLimit, capacity, FREE);
+        statuses = Arrays.copyOf(statuses, capacity);
+        epicIds = Arrays.copyOf(epicIds, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        nameRefs = Arrays.copyOf(nameRefs, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+    }
+}
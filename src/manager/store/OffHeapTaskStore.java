@@ -0,0 +1,599 @@
+package manager.store;
+
+import tasks.TaskStatus;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * {@link TaskStore} that keeps records outside the Java heap, in direct or memory-mapped buffers, so millions
+ * of tasks add nothing to garbage collection work.
+ * <p>
+ * Records are fixed-width slots grouped into chunks of {@value #CHUNK_SLOTS}; freed slots are chained into a
+ * free list and reused. Names are appended to a separate arena of {@value #ARENA_CHUNK_SIZE}-byte chunks;
+ * once names no slot refers to fill more than half of it, the live names are moved to its start and the rest
+ * is given back.
+ * A header keeps the slot count, free list head, arena end and next task id.
+ * <p>
+ * Slot layout:
+ * <pre>
+ * 0  byte  flags (1 - used)      16 long name offset in the arena
+ * 1  byte  type ordinal          24 long start, epoch nanos
+ * 2  byte  status ordinal        32 long end, epoch nanos
+ * 4  int   id                    40 long duration, nanos
+ * 8  int   epic id               48 int  next free slot
+ * 12 int   name length (-1 null)
+ * </pre>
+ * A store opened with {@link #mapped(Path)} lives in {@code <path>} (header and slots) and
+ * {@code <path>.names} (arena); reopening the files restores the store without decoding it record by record.
+ * The header and the slots reach the disk page by page and in no set order, so on reopening only the slot flags
+ * are trusted: the slot count, free list and arena end are rebuilt from them.
+ */
+public class OffHeapTaskStore implements TaskStore {
+    public static final int MAGIC = 0x4B4E4F48;
+    public static final short VERSION = 1;
+    static final int SLOT_SIZE = 56;
+    static final int HEADER_SIZE = 64;
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_BYTES = CHUNK_SLOTS * SLOT_SIZE;
+    private static final int ARENA_CHUNK_SIZE = 1 << 20;
+    private static final int NO_SLOT = -1;
+
+    private static final int FLAGS = 0;
+    private static final int TYPE = 1;
+    private static final int STATUS = 2;
+    private static final int ID = 4;
+    private static final int EPIC_ID = 8;
+    private static final int NAME_LENGTH = 12;
+    private static final int NAME_OFFSET = 16;
+    private static final int START = 24;
+    private static final int END = 32;
+    private static final int DURATION = 40;
+    private static final int NEXT_FREE = 48;
+
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_SLOT_LIMIT = 8;
+    private static final int HEADER_SIZE_FIELD = 12;
+    private static final int HEADER_FREE_HEAD = 16;
+    private static final int HEADER_NEXT_ID = 20;
+    private static final int HEADER_ARENA_END = 24;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final FileChannel slotChannel;
+    private final FileChannel nameChannel;
+    private final ByteBuffer header;
+    private ByteBuffer[] slotChunks = new ByteBuffer[0];
+    private ByteBuffer[] arenaChunks = new ByteBuffer[0];
+    private final BitSet dirtySlotChunks = new BitSet();
+    private final BitSet dirtyArenaChunks = new BitSet();
+    private long liveNameBytes;
+
+    /**
+     * Creates an empty store in direct buffers.
+     */
+    public OffHeapTaskStore() {
+        slotChannel = null;
+        nameChannel = null;
+        header = ByteBuffer.allocateDirect(HEADER_SIZE);
+        initHeader();
+    }
+
+    private OffHeapTaskStore(FileChannel slotChannel, FileChannel nameChannel) throws IOException {
+        this.slotChannel = slotChannel;
+        this.nameChannel = nameChannel;
+        boolean fresh = slotChannel.size() < HEADER_SIZE;
+        header = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (fresh) {
+            initHeader();
+        } else if (header.getInt(HEADER_MAGIC) != MAGIC) {
+            throw new IOException("Файл не является хранилищем задач");
+        } else if (header.getShort(HEADER_VERSION) != VERSION) {
+            throw new IOException("Неподдерживаемая версия хранилища: " + header.getShort(HEADER_VERSION));
+        } else {
+            recover();
+        }
+    }
+
+    /**
+     * Rejects a name whose UTF-8 form does not fit into one arena chunk, so callers can check it before
+     * changing anything.
+     */
+    public static void checkName(String name) {
+        if (name == null || (long) name.length() * 3 <= ARENA_CHUNK_SIZE) {
+            return;
+        }
+        if (name.getBytes(StandardCharsets.UTF_8).length > ARENA_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Имя задачи длиннее " + ARENA_CHUNK_SIZE + " байт");
+        }
+    }
+
+    /**
+     * Opens or creates a store backed by memory-mapped files at {@code path} and {@code path.names}.
+     */
+    public static OffHeapTaskStore mapped(Path path) throws IOException {
+        FileChannel slots = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileChannel names = FileChannel.open(namesPath(path), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new OffHeapTaskStore(slots, names);
+            } catch (IOException | RuntimeException e) {
+                names.close();
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            slots.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the file starts with the header of a mapped store.
+     */
+    public static boolean isStore(Path path) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(magic, 0);
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    public static Path namesPath(Path path) {
+
+        return path.resolveSibling(path.getFileName() + ".names");
+    }
+
+    public boolean isMapped() {
+
+        return slotChannel != null;
+    }
+
+    @Override
+    public int allocate() {
+        int slot = header.getInt(HEADER_FREE_HEAD);
+        if (slot != NO_SLOT) {
+            header.putInt(HEADER_FREE_HEAD, slotChunk(slot).getInt(offset(slot) + NEXT_FREE));
+        } else {
+            slot = slotLimit();
+            header.putInt(HEADER_SLOT_LIMIT, slot + 1);
+        }
+        ByteBuffer chunk = slotChunk(slot);
+        int offset = offset(slot);
+        chunk.put(offset + FLAGS, (byte) 1);
+        chunk.put(offset + TYPE, (byte) TaskType.TASK.ordinal());
+        chunk.putInt(offset + NAME_LENGTH, -1);
+        markSlotDirty(slot);
+        header.putInt(HEADER_SIZE_FIELD, size() + 1);
+        return slot;
+    }
+
+    @Override
+    public void release(int slot) {
+        if (!isUsed(slot)) {
+            return;
+        }
+        ByteBuffer chunk = slotChunk(slot);
+        int offset = offset(slot);
+        chunk.put(offset + FLAGS, (byte) 0);
+        dropName(chunk, offset);
+        chunk.putInt(offset + NEXT_FREE, header.getInt(HEADER_FREE_HEAD));
+        markSlotDirty(slot);
+        header.putInt(HEADER_FREE_HEAD, slot);
+        header.putInt(HEADER_SIZE_FIELD, size() - 1);
+    }
+
+    @Override
+    public int slotLimit() {
+
+        return header.getInt(HEADER_SLOT_LIMIT);
+    }
+
+    @Override
+    public boolean isUsed(int slot) {
+
+        return slot >= 0 && slot < slotLimit() && slotChunk(slot).get(offset(slot) + FLAGS) == 1;
+    }
+
+    @Override
+    public int size() {
+
+        return header.getInt(HEADER_SIZE_FIELD);
+    }
+
+    @Override
+    public int id(int slot) {
+
+        return slotChunk(slot).getInt(offset(slot) + ID);
+    }
+
+    @Override
+    public TaskType type(int slot) {
+
+        return TYPES[slotChunk(slot).get(offset(slot) + TYPE)];
+    }
+
+    @Override
+    public TaskStatus status(int slot) {
+
+        return STATUSES[slotChunk(slot).get(offset(slot) + STATUS)];
+    }
+
+    @Override
+    public int epicId(int slot) {
+
+        return slotChunk(slot).getInt(offset(slot) + EPIC_ID);
+    }
+
+    @Override
+    public long start(int slot) {
+
+        return slotChunk(slot).getLong(offset(slot) + START);
+    }
+
+    @Override
+    public long end(int slot) {
+
+        return slotChunk(slot).getLong(offset(slot) + END);
+    }
+
+    @Override
+    public long duration(int slot) {
+
+        return slotChunk(slot).getLong(offset(slot) + DURATION);
+    }
+
+    @Override
+    public String name(int slot) {
+        ByteBuffer chunk = slotChunk(slot);
+        int length = chunk.getInt(offset(slot) + NAME_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        return new String(readName(chunk.getLong(offset(slot) + NAME_OFFSET), length), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(int slot, int id, TaskType type, TaskStatus status, int epicId, String name) {
+        ByteBuffer chunk = slotChunk(slot);
+        int offset = offset(slot);
+        chunk.put(offset + TYPE, (byte) type.ordinal());
+        chunk.put(offset + STATUS, (byte) status.ordinal());
+        chunk.putInt(offset + ID, id);
+        chunk.putInt(offset + EPIC_ID, epicId);
+        markSlotDirty(slot);
+        if (name == null) {
+            dropName(chunk, offset);
+            return;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int oldLength = chunk.getInt(offset + NAME_LENGTH);
+        if (oldLength != bytes.length
+                || !Arrays.equals(readName(chunk.getLong(offset + NAME_OFFSET), oldLength), bytes)) {
+            long nameOffset = appendName(bytes);
+            dropName(chunk, offset);
+            chunk.putLong(offset + NAME_OFFSET, nameOffset);
+            chunk.putInt(offset + NAME_LENGTH, bytes.length);
+            liveNameBytes += bytes.length;
+            long arenaEnd = header.getLong(HEADER_ARENA_END);
+            if (arenaEnd - liveNameBytes >= ARENA_CHUNK_SIZE && (arenaEnd - liveNameBytes) * 2 > arenaEnd) {
+                compactArena();
+            }
+        }
+    }
+
+    @Override
+    public void setStatus(int slot, TaskStatus status) {
+        slotChunk(slot).put(offset(slot) + STATUS, (byte) status.ordinal());
+        markSlotDirty(slot);
+    }
+
+    @Override
+    public void setTiming(int slot, long start, long end, long duration) {
+        ByteBuffer chunk = slotChunk(slot);
+        int offset = offset(slot);
+        chunk.putLong(offset + START, start);
+        chunk.putLong(offset + END, end);
+        chunk.putLong(offset + DURATION, duration);
+        markSlotDirty(slot);
+    }
+
+    @Override
+    public int nextId() {
+
+        return header.getInt(HEADER_NEXT_ID);
+    }
+
+    @Override
+    public void setNextId(int nextId) {
+
+        header.putInt(HEADER_NEXT_ID, nextId);
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < slotLimit(); slot++) {
+            slotChunk(slot).put(offset(slot) + FLAGS, (byte) 0);
+            markSlotDirty(slot);
+        }
+        int nextId = nextId();
+        initHeader();
+        setNextId(nextId);
+        liveNameBytes = 0;
+    }
+
+    /**
+     * Returns the number of arena bytes before its end that no slot's name occupies.
+     */
+    public long deadNameBytes() {
+
+        return header.getLong(HEADER_ARENA_END) - liveNameBytes;
+    }
+
+    /**
+     * Writes modified parts of a mapped store to the storage device. Does nothing for direct buffers.
+     */
+    @Override
+    public void force() {
+        if (!isMapped()) {
+            return;
+        }
+        forceChunks(arenaChunks, dirtyArenaChunks);
+        forceChunks(slotChunks, dirtySlotChunks);
+        ((MappedByteBuffer) header).force();
+    }
+
+    @Override
+    public void close() {
+        if (!isMapped()) {
+            return;
+        }
+        force();
+        try {
+            slotChannel.close();
+            nameChannel.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось закрыть хранилище задач: " + e.getMessage(), e);
+        }
+    }
+
+    private void initHeader() {
+        header.putInt(HEADER_MAGIC, MAGIC);
+        header.putShort(HEADER_VERSION, VERSION);
+        header.putInt(HEADER_SLOT_LIMIT, 0);
+        header.putInt(HEADER_SIZE_FIELD, 0);
+        header.putInt(HEADER_FREE_HEAD, NO_SLOT);
+        header.putInt(HEADER_NEXT_ID, 1);
+        header.putLong(HEADER_ARENA_END, 0);
+    }
+
+    /**
+     * Rebuilds the header of a reopened store from its slots. A slot limit is cut back to the slots the file
+     * holds and then to the last used slot, free slots are chained again in ascending order, and the arena end
+     * is placed after the last name a used slot refers to, so nothing in use is handed out twice.
+     */
+    private void recover() throws IOException {
+        long capacity = (slotChannel.size() - HEADER_SIZE) / SLOT_SIZE;
+        int limit = (int) Math.min(Math.max(header.getInt(HEADER_SLOT_LIMIT), 0), capacity);
+        while (limit > 0 && slotChunk(limit - 1).get(offset(limit - 1) + FLAGS) != 1) {
+            limit--;
+        }
+        int size = 0;
+        int freeHead = NO_SLOT;
+        int maxId = 0;
+        long liveBytes = 0;
+        long arenaEnd = 0;
+        for (int slot = limit - 1; slot >= 0; slot--) {
+            ByteBuffer chunk = slotChunk(slot);
+            int offset = offset(slot);
+            if (chunk.get(offset + FLAGS) != 1) {
+                if (chunk.getInt(offset + NEXT_FREE) != freeHead) {
+                    chunk.putInt(offset + NEXT_FREE, freeHead);
+                    markSlotDirty(slot);
+                }
+                freeHead = slot;
+                continue;
+            }
+            checkSlot(slot, chunk, offset);
+            size++;
+            maxId = Math.max(maxId, chunk.getInt(offset + ID));
+            int length = chunk.getInt(offset + NAME_LENGTH);
+            if (length > 0) {
+                liveBytes += length;
+                arenaEnd = Math.max(arenaEnd, chunk.getLong(offset + NAME_OFFSET) + length);
+            }
+        }
+        header.putInt(HEADER_SLOT_LIMIT, limit);
+        header.putInt(HEADER_SIZE_FIELD, size);
+        header.putInt(HEADER_FREE_HEAD, freeHead);
+        header.putInt(HEADER_NEXT_ID, Math.max(nextId(), maxId + 1));
+        header.putLong(HEADER_ARENA_END, arenaEnd);
+        liveNameBytes = liveBytes;
+    }
+
+    private static void checkSlot(int slot, ByteBuffer chunk, int offset) throws IOException {
+        int type = chunk.get(offset + TYPE);
+        int status = chunk.get(offset + STATUS);
+        int length = chunk.getInt(offset + NAME_LENGTH);
+        long nameOffset = chunk.getLong(offset + NAME_OFFSET);
+        if (type < 0 || type >= TYPES.length || status < 0 || status >= STATUSES.length || length < -1
+                || length > 0 && (nameOffset < 0 || nameOffset % ARENA_CHUNK_SIZE + length > ARENA_CHUNK_SIZE)) {
+            throw new IOException("Хранилище задач повреждено: слот " + slot);
+        }
+    }
+
+    private long appendName(byte[] bytes) {
+        if (bytes.length > ARENA_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Имя задачи длиннее " + ARENA_CHUNK_SIZE + " байт");
+        }
+        long offset = putName(header.getLong(HEADER_ARENA_END), bytes);
+        header.putLong(HEADER_ARENA_END, offset + bytes.length);
+        return offset;
+    }
+
+    /**
+     * Writes the name at {@code end}, or at the start of the next chunk when it does not fit, and returns where
+     * it went.
+     */
+    private long putName(long end, byte[] bytes) {
+        int chunkIndex = (int) (end / ARENA_CHUNK_SIZE);
+        int position = (int) (end % ARENA_CHUNK_SIZE);
+        if (position + bytes.length > ARENA_CHUNK_SIZE) {
+            chunkIndex++;
+            position = 0;
+        }
+        arenaChunk(chunkIndex).put(position, bytes);
+        if (isMapped()) {
+            dirtyArenaChunks.set(chunkIndex);
+        }
+        return (long) chunkIndex * ARENA_CHUNK_SIZE + position;
+    }
+
+    private void dropName(ByteBuffer chunk, int offset) {
+        liveNameBytes -= Math.max(chunk.getInt(offset + NAME_LENGTH), 0);
+        chunk.putInt(offset + NAME_LENGTH, -1);
+    }
+
+    /**
+     * Moves the names of used slots to the start of the arena and cuts off the chunks left over. The names are
+     * copied past the arena end first and then back to its start; each copy reaches the disk before any slot is
+     * pointed at it, so a mapped store that stops at any step still has every slot referring to a complete name.
+     */
+    private void compactArena() {
+        long tail = ceilChunk(header.getLong(HEADER_ARENA_END));
+        long end = relocateNames(tail);
+        if (end - tail > tail) {
+            header.putLong(HEADER_ARENA_END, end);
+            return;
+        }
+        end = relocateNames(0);
+        header.putLong(HEADER_ARENA_END, end);
+        int chunks = (int) (ceilChunk(end) / ARENA_CHUNK_SIZE);
+        arenaChunks = Arrays.copyOf(arenaChunks, chunks);
+        dirtyArenaChunks.clear(chunks, Integer.MAX_VALUE);
+        if (isMapped()) {
+            ((MappedByteBuffer) header).force();
+            try {
+                nameChannel.truncate((long) chunks * ARENA_CHUNK_SIZE);
+            } catch (IOException e) {
+                throw new IllegalStateException("Не удалось сократить файл имён: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Copies every used slot's name into the arena from {@code start} on, writes the copies to the disk, then
+     * points the slots at them and writes the slots. Returns the end of the last copy.
+     */
+    private long relocateNames(long start) {
+        int limit = slotLimit();
+        long[] offsets = new long[limit];
+        long end = start;
+        for (int slot = 0; slot < limit; slot++) {
+            ByteBuffer chunk = slotChunk(slot);
+            int offset = offset(slot);
+            int length = chunk.getInt(offset + NAME_LENGTH);
+            if (chunk.get(offset + FLAGS) == 1 && length > 0) {
+                offsets[slot] = putName(end, readName(chunk.getLong(offset + NAME_OFFSET), length));
+                end = offsets[slot] + length;
+            }
+        }
+        forceChunks(arenaChunks, dirtyArenaChunks);
+        for (int slot = 0; slot < limit; slot++) {
+            ByteBuffer chunk = slotChunk(slot);
+            int offset = offset(slot);
+            if (chunk.get(offset + FLAGS) == 1 && chunk.getInt(offset + NAME_LENGTH) > 0) {
+                chunk.putLong(offset + NAME_OFFSET, offsets[slot]);
+                markSlotDirty(slot);
+            }
+        }
+        forceChunks(slotChunks, dirtySlotChunks);
+        return end;
+    }
+
+    private static long ceilChunk(long position) {
+
+        return (position + ARENA_CHUNK_SIZE - 1) / ARENA_CHUNK_SIZE * ARENA_CHUNK_SIZE;
+    }
+
+    private byte[] readName(long nameOffset, int length) {
+        byte[] bytes = new byte[Math.max(length, 0)];
+        if (length > 0) {
+            arenaChunk((int) (nameOffset / ARENA_CHUNK_SIZE)).get((int) (nameOffset % ARENA_CHUNK_SIZE), bytes);
+        }
+        return bytes;
+    }
+
+    private ByteBuffer slotChunk(int slot) {
+        int index = slot >>> CHUNK_SHIFT;
+        if (index >= slotChunks.length) {
+            slotChunks = Arrays.copyOf(slotChunks, index + 1);
+        }
+        ByteBuffer chunk = slotChunks[index];
+        if (chunk == null) {
+            chunk = allocate(slotChannel, HEADER_SIZE + (long) index * CHUNK_BYTES, CHUNK_BYTES);
+            slotChunks[index] = chunk;
+        }
+        return chunk;
+    }
+
+    private ByteBuffer arenaChunk(int index) {
+        if (index >= arenaChunks.length) {
+            arenaChunks = Arrays.copyOf(arenaChunks, index + 1);
+        }
+        ByteBuffer chunk = arenaChunks[index];
+        if (chunk == null) {
+            chunk = allocate(nameChannel, (long) index * ARENA_CHUNK_SIZE, ARENA_CHUNK_SIZE);
+            arenaChunks[index] = chunk;
+        }
+        return chunk;
+    }
+
+    private static ByteBuffer allocate(FileChannel channel, long position, int size) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось отобразить файл хранилища: " + e.getMessage(), e);
+        }
+    }
+
+    private void forceChunks(ByteBuffer[] chunks, BitSet dirty) {
+        if (!isMapped()) {
+            return;
+        }
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            ((MappedByteBuffer) chunks[i]).force();
+        }
+        dirty.clear();
+    }
+
+    private void markSlotDirty(int slot) {
+        if (isMapped()) {
+            dirtySlotChunks.set(slot >>> CHUNK_SHIFT);
+        }
+    }
+
+    private static int offset(int slot) {
+
+        return (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE;
+    }
+}
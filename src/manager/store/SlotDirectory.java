@@ -0,0 +1,60 @@
+package manager.store;
+
+import java.util.Arrays;
+
+/**
+ * Maps task ids to store slots through a flat {@code int[]} indexed by id. Ids come from a sequential
+ * counter, so the table stays dense.
+ */
+public class SlotDirectory {
+    private static final int ABSENT = -1;
+    private int[] slots = new int[1024];
+    private int size;
+
+    public SlotDirectory() {
+
+        Arrays.fill(slots, ABSENT);
+    }
+
+    /**
+     * Returns the slot of the task with the given id, or -1 if there is none.
+     */
+    public int get(int id) {
+
+        return id >= 0 && id < slots.length ? slots[id] : ABSENT;
+    }
+
+    public void put(int id, int slot) {
+        if (id < 0) {
+            throw new IllegalArgumentException("ID не может быть отрицательным: " + id);
+        }
+        if (id >= slots.length) {
+            int oldLength = slots.length;
+            slots = Arrays.copyOf(slots, Math.max(id + 1, oldLength + (oldLength >> 1)));
+            Arrays.fill(slots, oldLength, slots.length, ABSENT);
+        }
+        if (slots[id] == ABSENT) {
+            size++;
+        }
+        slots[id] = slot;
+    }
+
+    public int remove(int id) {
+        int slot = get(id);
+        if (slot != ABSENT) {
+            slots[id] = ABSENT;
+            size--;
+        }
+        return slot;
+    }
+
+    public int size() {
+
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, ABSENT);
+        size = 0;
+    }
+}
@@ -0,0 +1,108 @@
+package manager.store;
+
+import tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Converts between {@link Task} objects and {@link TaskStore} slots.
+ * <p>
+ * Times are kept as UTC epoch nanoseconds in a {@code long}, which covers the years 1678 to 2261 without
+ * losing precision; values outside that range are rejected.
+ */
+public final class TaskRecords {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private TaskRecords() {
+    }
+
+    public static void write(TaskStore store, int slot, Task task) {
+        int epicId = task instanceof SubTask subTask ? subTask.getEpicId() : 0;
+        store.write(slot, task.getId(), task.getType(), task.getStatus(), epicId, task.getName());
+        store.setTiming(slot, toNanos(task.getStartTime()), endNanos(task), toNanos(task.getDuration()));
+    }
+
+    /**
+     * Returns the end of the task's time slot in epoch nanoseconds, or {@link TaskStore#NONE} without a start.
+     */
+    public static long endNanos(Task task) {
+        if (task instanceof Epic) {
+            return toNanos(task.getEndTime());
+        }
+        long start = toNanos(task.getStartTime());
+        long duration = toNanos(task.getDuration());
+        if (start == TaskStore.NONE || duration == TaskStore.NONE) {
+            return start;
+        }
+        try {
+            return Math.addExact(start, duration);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Время окончания вне поддерживаемого диапазона: " + task.getEndTime());
+        }
+    }
+
+    /**
+     * Materializes the slot as a task object. Epics come back without subtasks; callers attach them.
+     */
+    public static Task read(TaskStore store, int slot) {
+        int id = store.id(slot);
+        String name = store.name(slot);
+        LocalDateTime start = toDateTime(store.start(slot));
+        Duration duration = toDuration(store.duration(slot));
+        Task task = switch (store.type(slot)) {
+            case TASK -> new Task(id, name, duration, start);
+            case SUBTASK -> new SubTask(id, name, store.epicId(slot), duration, start);
+            case EPIC -> {
+                Epic epic = new Epic(id, name);
+                epic.setStartTime(start);
+                epic.setDuration(duration);
+                epic.setEndTime(toDateTime(store.end(slot)));
+                yield epic;
+            }
+        };
+        task.setStatus(store.status(slot));
+        return task;
+    }
+
+    public static long toNanos(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return TaskStore.NONE;
+        }
+        try {
+            long nanos = Math.addExact(Math.multiplyExact(dateTime.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND),
+                    dateTime.getNano());
+            if (nanos != TaskStore.NONE) {
+                return nanos;
+            }
+        } catch (ArithmeticException ignored) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Время вне поддерживаемого диапазона: " + dateTime);
+    }
+
+    public static long toNanos(Duration duration) {
+        if (duration == null) {
+            return TaskStore.NONE;
+        }
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Продолжительность вне поддерживаемого диапазона: " + duration);
+        }
+    }
+
+    public static LocalDateTime toDateTime(long nanos) {
+        if (nanos == TaskStore.NONE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    public static Duration toDuration(long nanos) {
+
+        return nanos == TaskStore.NONE ? null : Duration.ofNanos(nanos);
+    }
+}
@@ -0,0 +1,72 @@
+package manager.store;
+
+import tasks.TaskStatus;
+import tasks.TaskType;
+
+/**
+ * Fixed-layout storage for task records addressed by slot number. A slot holds one task, epic or subtask as
+ * primitive fields; times are epoch nanoseconds in UTC and absent values are {@link #NONE}. Slots freed by
+ * {@link #release(int)} are handed out again by {@link #allocate()}.
+ * <p>
+ * Implementations are not thread-safe.
+ */
+public interface TaskStore extends AutoCloseable {
+    long NONE = Long.MIN_VALUE;
+
+    int allocate();
+
+    void release(int slot);
+
+    /**
+     * Upper bound of the slots handed out so far; every used slot is below it.
+     */
+    int slotLimit();
+
+    boolean isUsed(int slot);
+
+    int size();
+
+    int id(int slot);
+
+    TaskType type(int slot);
+
+    TaskStatus status(int slot);
+
+    int epicId(int slot);
+
+    long start(int slot);
+
+    long end(int slot);
+
+    long duration(int slot);
+
+    String name(int slot);
+
+    void write(int slot, int id, TaskType type, TaskStatus status, int epicId, String name);
+
+    void setStatus(int slot, TaskStatus status);
+
+    void setTiming(int slot, long start, long end, long duration);
+
+    /**
+     * Removes every record. The id counter is kept, so ids are not reused after clearing.
+     */
+    void clear();
+
+    /**
+     * Next task id to hand out; stored with the records so a persistent store keeps it across restarts.
+     */
+    int nextId();
+
+    void setNextId(int nextId);
+
+    /**
+     * Makes written records durable. Does nothing for stores that live only in memory.
+     */
+    default void force() {
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,63 @@
+package manager.util;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Thread-safe {@link IntMap} backed by a {@link ConcurrentHashMap}. Keys are boxed internally; this variant
+ * trades footprint for lock-free reads and weakly consistent iteration.
+ */
+public class ConcurrentIntMap<V> implements IntMap<V> {
+    private final ConcurrentHashMap<Integer, V> map = new ConcurrentHashMap<>();
+
+    @Override
+    public V get(int key) {
+
+        return map.get(key);
+    }
+
+    @Override
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Значение не может быть null");
+        }
+        return map.put(key, value);
+    }
+
+    @Override
+    public V remove(int key) {
+
+        return map.remove(key);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+
+        return map.size();
+    }
+
+    @Override
+    public void clear() {
+
+        map.clear();
+    }
+
+    @Override
+    public Collection<V> values() {
+
+        return map.values();
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+
+        map.keySet().forEach(action::accept);
+    }
+}
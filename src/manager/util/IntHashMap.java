@@ -0,0 +1,255 @@
+package manager.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Open-addressing {@link IntMap} with linear probing. Keys live in an {@code int[]} and values in a parallel
+ * {@code Object[]}, so an entry costs two array slots instead of a node and a boxed key. Removed slots are
+ * marked with a tombstone, which keeps iterator removal simple; tombstones are dropped on the next rehash.
+ * <p>
+ * Not thread-safe.
+ */
+public class IntHashMap<V> implements IntMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final Object TOMBSTONE = new Object();
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int tombstones;
+    private int threshold;
+    private int modCount;
+    private Values valuesView;
+
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Ожидаемый размер не может быть отрицательным: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Значение не может быть null");
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        int firstTombstone = -1;
+        Object current;
+        while ((current = values[index]) != null) {
+            if (current == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = index;
+                }
+            } else if (keys[index] == key) {
+                values[index] = value;
+                return (V) current;
+            }
+            index = (index + 1) & mask;
+        }
+        if (firstTombstone >= 0) {
+            index = firstTombstone;
+            tombstones--;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        modCount++;
+        if (size + tombstones > threshold) {
+            rehash(capacityFor(size));
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : removeAt(index);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        tombstones = 0;
+        modCount++;
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (valuesView == null) {
+            valuesView = new Values();
+        }
+        return valuesView;
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value != null && value != TOMBSTONE) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        Object current;
+        while ((current = values[index]) != null) {
+            if (current != TOMBSTONE && keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeAt(int index) {
+        V old = (V) values[index];
+        values[index] = TOMBSTONE;
+        size--;
+        tombstones++;
+        modCount++;
+        return old;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            Object value = oldValues[i];
+            if (value != null && value != TOMBSTONE) {
+                int index = mix(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = value;
+            }
+        }
+        tombstones = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        threshold = capacity / 4 * 3;
+    }
+
+    /**
+     * Smallest power of two that keeps the given number of entries at or below half full,
+     * so growing from the 3/4 load limit doubles the table.
+     */
+    private static int capacityFor(int entries) {
+        long needed = Math.max(DEFAULT_CAPACITY, (long) entries * 2);
+        if (needed > 1 << 30) {
+            throw new IllegalStateException("Слишком много элементов: " + entries);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private final class Values extends AbstractCollection<V> {
+
+        @Override
+        public int size() {
+
+            return size;
+        }
+
+        @Override
+        public void clear() {
+
+            IntHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private int next = advance(0);
+                private int last = -1;
+                private int expectedModCount = modCount;
+
+                @Override
+                public boolean hasNext() {
+
+                    return next < values.length;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (expectedModCount != modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (next >= values.length) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = advance(next + 1);
+                    return (V) values[last];
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    if (expectedModCount != modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    removeAt(last);
+                    expectedModCount = modCount;
+                    last = -1;
+                }
+            };
+        }
+
+        private int advance(int from) {
+            int index = from;
+            while (index < values.length && (values[index] == null || values[index] == TOMBSTONE)) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
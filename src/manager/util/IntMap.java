@@ -0,0 +1,38 @@
+package manager.util;
+
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Map from primitive {@code int} keys to non-null values. Lookups take the key as an {@code int},
+ * so callers never box ids.
+ */
+public interface IntMap<V> {
+
+    V get(int key);
+
+    /**
+     * Associates the value with the key and returns the previous value, or null if there was none.
+     */
+    V put(int key, V value);
+
+    V remove(int key);
+
+    boolean containsKey(int key);
+
+    int size();
+
+    default boolean isEmpty() {
+
+        return size() == 0;
+    }
+
+    void clear();
+
+    /**
+     * Returns a live view of the values. Removing through the view removes the entry from the map.
+     */
+    Collection<V> values();
+
+    void forEachKey(IntConsumer action);
+}
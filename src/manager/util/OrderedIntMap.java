@@ -0,0 +1,95 @@
+package manager.util;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link IntMap} decorator that also tracks its keys in ascending order, so callers can walk the entries
+ * by key from any position. Keys are marked in a {@link BitSet}; task ids come from a sequential counter,
+ * which keeps it dense, and {@link #nextKey(int)} costs one word scan per 64 ids.
+ * <p>
+ * Entries removed through {@link #values()} stay marked until their key is put or removed again;
+ * {@link #nextKey(int)} re-checks every marked key against the map and skips such leftovers.
+ * Key order is not thread-safe: callers must serialize mutations with {@link #nextKey(int)}.
+ */
+public class OrderedIntMap<V> implements IntMap<V> {
+    private final IntMap<V> delegate;
+    private final BitSet keys = new BitSet();
+
+    public OrderedIntMap(IntMap<V> delegate) {
+        this.delegate = delegate;
+        delegate.forEachKey(this::mark);
+    }
+
+    /**
+     * Returns the smallest key greater than {@code after}, or -1 if there is none.
+     */
+    public int nextKey(int after) {
+        if (after == Integer.MAX_VALUE) {
+            return -1;
+        }
+        int key = keys.nextSetBit(Math.max(after + 1, 0));
+        while (key >= 0 && !delegate.containsKey(key)) {
+            key = key == Integer.MAX_VALUE ? -1 : keys.nextSetBit(key + 1);
+        }
+        return key;
+    }
+
+    @Override
+    public V get(int key) {
+
+        return delegate.get(key);
+    }
+
+    @Override
+    public V put(int key, V value) {
+        mark(key);
+        return delegate.put(key, value);
+    }
+
+    @Override
+    public V remove(int key) {
+        if (key >= 0) {
+            keys.clear(key);
+        }
+        return delegate.remove(key);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+
+        return delegate.size();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        keys.clear();
+    }
+
+    @Override
+    public Collection<V> values() {
+
+        return delegate.values();
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+
+        delegate.forEachKey(action);
+    }
+
+    private void mark(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Ключ не может быть отрицательным: " + key);
+        }
+        keys.set(key);
+    }
+}
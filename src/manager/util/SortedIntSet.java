@@ -0,0 +1,104 @@
+package manager.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Ascending set of {@code int} values, tuned for values that arrive in increasing order, such as ids handed out
+ * by a counter. Appending a larger value is O(1); removal only marks the value, and the array is compacted once
+ * marked values make up half of it. Walking up from a value costs a binary search plus the values visited.
+ */
+public class SortedIntSet {
+    private int[] values = new int[16];
+    private final BitSet removed = new BitSet();
+    private int size;
+    private int removedCount;
+
+    public void add(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            if (removed.get(index)) {
+                removed.clear(index);
+                removedCount--;
+            }
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        }
+        if (insertAt < size) {
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            for (int i = removed.previousSetBit(size - 1); i >= insertAt; i = removed.previousSetBit(i - 1)) {
+                removed.clear(i);
+                removed.set(i + 1);
+            }
+        }
+        values[insertAt] = value;
+        size++;
+    }
+
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0 || removed.get(index)) {
+            return false;
+        }
+        removed.set(index);
+        removedCount++;
+        if (removedCount * 2 > size) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position of the smallest value greater than {@code value}, or -1 if there is none.
+     */
+    public int higherIndex(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        return liveFrom(index >= 0 ? index + 1 : -index - 1);
+    }
+
+    /**
+     * Returns the position of the next value after the one at {@code index}, or -1 if there is none.
+     */
+    public int nextIndex(int index) {
+
+        return liveFrom(index + 1);
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    public int size() {
+
+        return size - removedCount;
+    }
+
+    public void clear() {
+        removed.clear();
+        size = 0;
+        removedCount = 0;
+    }
+
+    private int liveFrom(int index) {
+        int live = removed.nextClearBit(index);
+        return live < size ? live : -1;
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.get(i)) {
+                values[kept++] = values[i];
+            }
+        }
+        removed.clear();
+        size = kept;
+        removedCount = 0;
+    }
+}
@@ -1,13 +1,46 @@
 package server;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import manager.PrioritizedSnapshot;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
 
 public abstract class BaseHttpHandler implements HttpHandler {
+    private static final Logger logger = Logger.getLogger(BaseHttpHandler.class.getName());
+    private final long maxBodySize;
+    private final int compressionThreshold;
+    private final int compressionLevel;
+    private final String etagEpoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    protected BaseHttpHandler() {
+        this(ServerConfig.defaults());
+    }
+
+    protected BaseHttpHandler(ServerConfig config) {
+        this.maxBodySize = config.getMaxBodySize();
+        this.compressionThreshold = config.getCompressionThreshold();
+        this.compressionLevel = config.getCompressionLevel();
+    }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
@@ -52,13 +85,232 @@ public abstract class BaseHttpHandler implements HttpHandler {
     }
 
     protected void sendText(HttpExchange exchange, int statusCode, String response) throws IOException {
+
+        sendBytes(exchange, statusCode, response.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends an already encoded JSON body, e.g. one cached by the handler, compressing it when it is larger than
+     * the compression threshold and the client accepts gzip or deflate.
+     */
+    protected void sendBytes(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, response.getBytes(StandardCharsets.UTF_8).length);
+        ResponseEncoding encoding = negotiateEncoding(exchange);
+        if (encoding != null && body.length > compressionThreshold) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.token());
+            exchange.sendResponseHeaders(statusCode, 0);
+            try (OutputStream os = encoding.wrap(exchange.getResponseBody(), compressionLevel)) {
+                os.write(body);
+            }
+            return;
+        }
+        exchange.sendResponseHeaders(statusCode, body.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(body);
+        }
+    }
+
+    /**
+     * Serializes a single value straight into the response body.
+     */
+    protected void sendJson(HttpExchange exchange, Gson gson, int statusCode, Object value) throws IOException {
+        streamJson(exchange, gson, statusCode, writer -> gson.toJson(value, value.getClass(), writer));
+    }
+
+    /**
+     * Returns a JSON writer bound to the response body; closing the writer completes the response. The status
+     * is fixed here, so failures while writing only cut the response short.
+     */
+    protected JsonWriter openJsonWriter(HttpExchange exchange, Gson gson, int statusCode) throws IOException {
+        return gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(openResponseBody(exchange, statusCode), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Opens the body of a JSON response whose length is not known in advance. If the client accepts gzip or
+     * deflate, a body longer than the compression threshold is compressed while it is written and a shorter
+     * one is sent as is. Otherwise the headers go out at once with chunked transfer encoding.
+     */
+    protected OutputStream openResponseBody(HttpExchange exchange, int statusCode) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        ResponseEncoding encoding = negotiateEncoding(exchange);
+        if (encoding != null) {
+            return new CompressingResponseStream(exchange, statusCode, encoding, compressionLevel,
+                    compressionThreshold);
+        }
+        exchange.sendResponseHeaders(statusCode, 0);
+        return exchange.getResponseBody();
+    }
+
+    /**
+     * Streams the items as a JSON array with chunked transfer encoding, serializing one element at a time
+     * instead of building the whole response in memory.
+     */
+    protected void sendJsonArray(HttpExchange exchange, Gson gson, Iterable<?> items) throws IOException {
+        streamJson(exchange, gson, 200, writer -> {
+            writer.beginArray();
+            for (Object item : items) {
+                gson.toJson(item, item.getClass(), writer);
+            }
+            writer.endArray();
+        });
+    }
+
+    /**
+     * Streams one page of a collection as {@code {"items":[...],"next":<id>}}; {@code next} is left out
+     * on the last page.
+     */
+    protected void sendJsonPage(HttpExchange exchange, Gson gson, Iterable<?> items, Integer next) throws IOException {
+        streamJson(exchange, gson, 200, writer -> {
+            writer.beginObject();
+            writer.name("items").beginArray();
+            for (Object item : items) {
+                gson.toJson(item, item.getClass(), writer);
+            }
+            writer.endArray();
+            if (next != null) {
+                writer.name("next").value(next);
+            }
+            writer.endObject();
+        });
+    }
+
+    /**
+     * Writes a JSON body after its status. Items may still be loaded while they are written, so a failure can
+     * come after the headers went out; it is logged and the exchange is closed without completing the body,
+     * since no other status can be sent any more.
+     */
+    private void streamJson(HttpExchange exchange, Gson gson, int statusCode, JsonBody body) throws IOException {
+        JsonWriter writer = openJsonWriter(exchange, gson, statusCode);
+        try {
+            body.writeTo(writer);
+            writer.close();
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Response aborted after its status was sent", e);
+            exchange.close();
+        }
+    }
+
+    /**
+     * Tags the response with a weak ETag built from the given manager versions and, if the request's
+     * {@code If-None-Match} already holds that tag, answers 304 without a body. Returns true when the 304 was
+     * sent, with the same {@code Vary} header a compressed 200 would carry. Versions must be read before the data
+     * they describe; without versions nothing is done.
+     * <p>
+     * Versions start from zero in every process, so the tag also begins with a random epoch drawn for each
+     * handler: a tag issued before a restart never matches the data after it.
+     */
+    protected boolean sendNotModifiedIfMatches(HttpExchange exchange, long... versions) throws IOException {
+        StringBuilder tag = new StringBuilder("W/\"").append(etagEpoch);
+        for (long version : versions) {
+            if (version == PrioritizedSnapshot.UNVERSIONED) {
+                return false;
+            }
+            tag.append('-').append(version);
+        }
+        String etag = tag.append('"').toString();
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (!matchesAny(exchange.getRequestHeaders().get("If-None-Match"), etag)) {
+            return false;
+        }
+        if (compressionLevel != Deflater.NO_COMPRESSION) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        }
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    // If-None-Match uses weak comparison: the W/ prefix is ignored on both sides.
+    private static boolean matchesAny(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.substring(2);
+        for (String header : ifNoneMatch) {
+            for (String candidate : header.split(",")) {
+                String value = candidate.trim();
+                if (value.equals("*") || (value.startsWith("W/") ? value.substring(2) : value).equals(opaque)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private ResponseEncoding negotiateEncoding(HttpExchange exchange) {
+        if (compressionLevel == Deflater.NO_COMPRESSION) {
+            return null;
+        }
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        return ResponseEncoding.negotiate(exchange.getRequestHeaders().get("Accept-Encoding"));
+    }
+
+    /**
+     * Parses the request body straight from its input stream. A declared {@code Content-Length} over the limit
+     * is rejected before reading, and the bytes actually read are counted, so an oversized body fails with
+     * {@link BodyTooLargeException} without being buffered. A malformed {@code Content-Length} fails with
+     * {@link InvalidContentLengthException}. An empty body yields {@code null}.
+     */
+    protected <T> T readJson(HttpExchange exchange, Gson gson, Class<T> type) throws IOException {
+        String declaredLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declaredLength != null && parseContentLength(declaredLength) > maxBodySize) {
+            throw new BodyTooLargeException(maxBodySize);
+        }
+        JsonReader reader = gson.newJsonReader(new InputStreamReader(
+                new LimitedInputStream(exchange.getRequestBody(), maxBodySize), StandardCharsets.UTF_8));
+        try {
+            T value = gson.fromJson(reader, type);
+            if (value != null && reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+            return value;
+        } catch (JsonParseException e) {
+            if (e.getCause() instanceof BodyTooLargeException tooLarge) {
+                throw tooLarge;
+            }
+            throw e;
         }
     }
 
+    private static long parseContentLength(String declaredLength) throws InvalidContentLengthException {
+        try {
+            long length = Long.parseLong(declaredLength.trim());
+            if (length < 0) {
+                throw new InvalidContentLengthException(declaredLength);
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            throw new InvalidContentLengthException(declaredLength);
+        }
+    }
+
+    /**
+     * Parses the query string into decoded name-value pairs; a repeated name keeps its last value.
+     */
+    protected Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    protected void sendBadRequest(HttpExchange exchange, String message) throws IOException {
+        sendText(exchange, 400, "{\"error\":\"" + message + "\"}");
+    }
+
+    protected void sendPayloadTooLarge(HttpExchange exchange) throws IOException {
+        sendText(exchange, 413, "{\"error\":\"Request body too large\"}");
+    }
+
     protected void sendNotFound(HttpExchange exchange) throws IOException {
         sendText(exchange, 404, "{\"error\":\"Resource not found\"}");
     }
@@ -66,6 +318,10 @@ public abstract class BaseHttpHandler implements HttpHandler {
     protected void sendHasInteractions(HttpExchange exchange) throws IOException {
         sendText(exchange, 406, "{\"error\":\"Task overlaps with existing tasks\"}");
     }
+
+    private interface JsonBody {
+        void writeTo(JsonWriter writer) throws IOException;
+    }
 }
 
 
@@ -0,0 +1,14 @@
+package server;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a request body that is larger than {@link ServerConfig#getMaxBodySize()}.
+ */
+public class BodyTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public BodyTooLargeException(long maxBodySize) {
+        super("Тело запроса превышает допустимый размер " + maxBodySize + " байт.");
+    }
+}
@@ -0,0 +1,83 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Response body that decides on compression by size. The first {@code threshold} bytes are held back;
+ * a body that ends within them is sent as is with its exact length, a longer one switches to chunked
+ * transfer and is compressed as it is written. Response headers are sent at that point, not earlier.
+ */
+class CompressingResponseStream extends OutputStream {
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final ResponseEncoding encoding;
+    private final int level;
+    private final byte[] pending;
+    private int pendingLength;
+    private OutputStream out;
+    private boolean closed;
+
+    CompressingResponseStream(HttpExchange exchange, int statusCode, ResponseEncoding encoding, int level,
+                              int threshold) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.encoding = encoding;
+        this.level = level;
+        this.pending = new byte[threshold];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (out == null && pendingLength < pending.length) {
+            pending[pendingLength++] = (byte) b;
+            return;
+        }
+        compressed().write(b);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        if (out == null && length <= pending.length - pendingLength) {
+            System.arraycopy(buffer, offset, pending, pendingLength, length);
+            pendingLength += length;
+            return;
+        }
+        compressed().write(buffer, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out != null) {
+            out.close();
+            return;
+        }
+        exchange.sendResponseHeaders(statusCode, pendingLength == 0 ? -1 : pendingLength);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(pending, 0, pendingLength);
+        }
+    }
+
+    private OutputStream compressed() throws IOException {
+        if (out == null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.token());
+            exchange.sendResponseHeaders(statusCode, 0);
+            out = encoding.wrap(exchange.getResponseBody(), level);
+            out.write(pending, 0, pendingLength);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,7 @@
+package server;
+
+public enum ExecutorMode {
+    DISPATCHER,
+    VIRTUAL_THREADS,
+    BOUNDED_POOL
+}
@@ -2,61 +2,123 @@ package server;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import manager.ConcurrentTaskManager;
 import manager.Managers;
 import manager.TaskManager;
-import server.gson.LocalDateTimeTypeAdapter;
+import server.gson.TaskTypeAdapterFactory;
 import server.handler.*;
-import server.gson.DurationTypeAdapter;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class HttpTaskServer {
 
-    private static final int PORT = 8080;
     private static final Logger logger = Logger.getLogger(HttpTaskServer.class.getName());
     private final HttpServer server;
+    private final ServerConfig config;
+    private final ExecutorService executor;
+    private final OverloadFilter overloadFilter = new OverloadFilter();
 
     public HttpTaskServer() throws IOException {
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
-        TaskManager taskManager = Managers.getDefaultInMemoryManager();
+        this(ServerConfig.defaults());
+    }
+
+    public HttpTaskServer(ServerConfig config) throws IOException {
+        this(config.getExecutorMode() == ExecutorMode.DISPATCHER
+                ? Managers.getDefaultInMemoryManager()
+                : Managers.getDefaultConcurrentManager(), config);
+    }
+
+    /**
+     * Creates a server over an existing manager. Every executor mode other than {@link ExecutorMode#DISPATCHER}
+     * runs handlers in parallel, so it requires a thread-safe {@link ConcurrentTaskManager}.
+     */
+    public HttpTaskServer(TaskManager taskManager, ServerConfig config) throws IOException {
+        if (config.getExecutorMode() != ExecutorMode.DISPATCHER && !(taskManager instanceof ConcurrentTaskManager)) {
+            throw new IllegalArgumentException("Режим " + config.getExecutorMode()
+                    + " обрабатывает запросы параллельно и требует ConcurrentTaskManager.");
+        }
+        this.config = config;
+        server = HttpServer.create(new InetSocketAddress(config.getPort()), config.getBacklog());
         Gson gson = new GsonBuilder()
-                .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .registerTypeAdapterFactory(new TaskTypeAdapterFactory())
                 .create();
-        server.createContext("/tasks", new TaskHandler(taskManager, gson));
-        server.createContext("/subtasks", new SubTaskHandler(taskManager, gson));
-        server.createContext("/epics", new EpicHandler(taskManager, gson));
-        server.createContext("/history", new HistoryHandler(taskManager, gson));
-        server.createContext("/prioritized", new PrioritizedTaskHandler(taskManager, gson));
-        server.setExecutor(null);
+        addContext("/tasks", new TaskHandler(taskManager, gson, config));
+        addContext("/subtasks", new SubTaskHandler(taskManager, gson, config));
+        addContext("/epics", new EpicHandler(taskManager, gson, config));
+        addContext("/history", new HistoryHandler(taskManager, gson, config));
+        addContext("/prioritized", new PrioritizedTaskHandler(taskManager, gson, config));
+        executor = createExecutor(config, overloadFilter);
+        server.setExecutor(executor);
+    }
+
+    private void addContext(String path, HttpHandler handler) {
+
+        server.createContext(path, handler).getFilters().add(overloadFilter);
     }
 
     public void start() {
         server.start();
-        System.out.println("Server started on port " + PORT);
+        System.out.println("Server started on port " + config.getPort() + " (" + config.getExecutorMode() + ")");
     }
 
     public void stop() {
         server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        overloadFilter.shutdown();
         System.out.println("Server stopped.");
     }
 
+    private static ExecutorService createExecutor(ServerConfig config, OverloadFilter overloadFilter) {
+        return switch (config.getExecutorMode()) {
+            case DISPATCHER -> null;
+            case VIRTUAL_THREADS -> Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("http-virtual-", 0).factory());
+            case BOUNDED_POOL -> new ThreadPoolExecutor(
+                    config.getPoolSize(), config.getPoolSize(),
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                    platformThreadFactory(),
+                    overloadFilter.rejectionHandler());
+        };
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "http-worker-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     public static void main(String[] args) {
         try {
-            HttpTaskServer server = new HttpTaskServer();
+            HttpTaskServer server = new HttpTaskServer(ServerConfig.fromSystemProperties());
             server.start();
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Failed to start server", e);
         }
     }
 }
-
-
-
-
@@ -0,0 +1,14 @@
+package server;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a request body whose {@code Content-Length} header is not a valid length.
+ */
+public class InvalidContentLengthException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public InvalidContentLengthException(String declaredLength) {
+        super("Некорректный заголовок Content-Length: " + declaredLength);
+    }
+}
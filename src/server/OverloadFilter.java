@@ -0,0 +1,116 @@
+package server;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers 503 to requests the bounded worker pool had no room for.
+ * <p>
+ * A rejected exchange still has to read its request line and headers before it can be answered, and a client may
+ * stall there, so it never runs on the dispatcher thread. The pool's {@link #rejectionHandler()} hands it to a
+ * small executor of its own with an overload mark set, and this filter then replies 503 without calling the
+ * handler. An exchange that takes longer than {@link #REJECT_TIMEOUT_MILLIS} is interrupted, which closes its
+ * connection; when that executor is full as well, the rejection propagates and the server closes the connection
+ * without reading anything.
+ */
+class OverloadFilter extends Filter {
+    static final long REJECT_TIMEOUT_MILLIS = 2_000;
+    private static final int REJECT_THREADS = 2;
+    private static final int REJECT_QUEUE_CAPACITY = 16;
+    private static final ThreadLocal<Boolean> OVERLOADED = ThreadLocal.withInitial(() -> false);
+    private static final byte[] BODY = "{\"error\":\"Server overloaded\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final ThreadPoolExecutor rejectExecutor = new ThreadPoolExecutor(REJECT_THREADS, REJECT_THREADS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(REJECT_QUEUE_CAPACITY),
+            daemonThreadFactory("http-overload-"));
+    private final ScheduledExecutorService watchdog =
+            Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("http-overload-watchdog-"));
+
+    RejectedExecutionHandler rejectionHandler() {
+
+        return (runnable, pool) -> rejectExecutor.execute(() -> reject(runnable));
+    }
+
+    void shutdown() {
+        rejectExecutor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    private void reject(Runnable exchange) {
+        Deadline deadline = new Deadline(Thread.currentThread());
+        watchdog.schedule(deadline, REJECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        OVERLOADED.set(true);
+        try {
+            exchange.run();
+        } finally {
+            OVERLOADED.remove();
+            deadline.finish();
+        }
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!OVERLOADED.get()) {
+            chain.doFilter(exchange);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        exchange.sendResponseHeaders(503, BODY.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(BODY);
+        }
+    }
+
+    @Override
+    public String description() {
+
+        return "Rejects requests with 503 when the worker pool is full";
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Interrupts a rejected exchange that outlives its timeout. Blocking channel reads end on interrupt by closing
+     * the channel; once the exchange has finished, a late deadline does nothing and an early one is cleared.
+     */
+    private static final class Deadline implements Runnable {
+        private final Thread thread;
+        private boolean finished;
+
+        Deadline(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!finished) {
+                thread.interrupt();
+            }
+        }
+
+        synchronized void finish() {
+            finished = true;
+            Thread.interrupted();
+        }
+    }
+}
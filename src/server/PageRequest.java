@@ -0,0 +1,42 @@
+package server;
+
+import tasks.Task;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset pagination parameters of a collection request: {@code ?after=<id>&limit=<n>}. The cursor is the id
+ * of the last item already received; the limit is capped at {@link #MAX_LIMIT}, so a single response never
+ * holds more than one page.
+ */
+public record PageRequest(int after, int limit) {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * Reads the page parameters, or returns null when the request asks for the whole collection.
+     *
+     * @throws IllegalArgumentException if a parameter is not a number or the limit is not positive
+     */
+    public static PageRequest parse(Map<String, String> params) {
+        String after = params.get("after");
+        String limit = params.get("limit");
+        if (after == null && limit == null) {
+            return null;
+        }
+        int pageLimit = limit == null ? DEFAULT_LIMIT : Integer.parseInt(limit);
+        if (pageLimit < 1) {
+            throw new IllegalArgumentException("Лимит должен быть положительным: " + pageLimit);
+        }
+        return new PageRequest(after == null ? 0 : Integer.parseInt(after), Math.min(pageLimit, MAX_LIMIT));
+    }
+
+    /**
+     * Returns the cursor of the page after the given one, or null if the page was the last.
+     */
+    public Integer nextCursor(List<? extends Task> page) {
+
+        return page.size() < limit ? null : page.getLast().getId();
+    }
+}
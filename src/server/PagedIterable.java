@@ -0,0 +1,63 @@
+package server;
+
+import tasks.Task;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks a whole collection through the manager's keyset pages, so at most one page is held in memory.
+ * Every page is read separately; under concurrent mutations the walk is weakly consistent: each task
+ * present for the whole walk is returned once, tasks added or removed meanwhile may or may not be.
+ */
+public class PagedIterable<T extends Task> implements Iterable<T> {
+    private final PageLoader<T> loader;
+    private final int pageSize;
+
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> load(int afterId, int limit);
+    }
+
+    public PagedIterable(PageLoader<T> loader) {
+        this(loader, PageRequest.MAX_LIMIT);
+    }
+
+    public PagedIterable(PageLoader<T> loader, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + pageSize);
+        }
+        this.loader = loader;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private List<T> page = loader.load(0, pageSize);
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                if (index < page.size()) {
+                    return true;
+                }
+                if (page.size() < pageSize) {
+                    return false;
+                }
+                page = loader.load(page.getLast().getId(), pageSize);
+                index = 0;
+                return !page.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content codings the server can apply to a response body, chosen from the client's {@code Accept-Encoding}.
+ */
+enum ResponseEncoding {
+    GZIP("gzip") {
+        @Override
+        OutputStream wrap(OutputStream out, int level) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+    },
+    DEFLATE("deflate") {
+        @Override
+        OutputStream wrap(OutputStream out, int level) {
+            Deflater deflater = new Deflater(level);
+            return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deflater.end();
+                    }
+                }
+            };
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String token;
+
+    ResponseEncoding(String token) {
+        this.token = token;
+    }
+
+    String token() {
+
+        return token;
+    }
+
+    /**
+     * Returns a stream that compresses into {@code out}; closing it finishes the coding and closes {@code out}.
+     */
+    abstract OutputStream wrap(OutputStream out, int level) throws IOException;
+
+    /**
+     * Picks gzip, then deflate, among the codings the headers accept with a non-zero quality, honouring
+     * {@code *} and {@code x-gzip}. Returns {@code null} when neither is acceptable or there is no header.
+     */
+    static ResponseEncoding negotiate(List<String> acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String header : acceptEncoding) {
+            for (String element : header.split(",")) {
+                String[] parts = element.split(";");
+                String coding = parts[0].trim().toLowerCase();
+                double quality = quality(parts);
+                switch (coding) {
+                    case "gzip", "x-gzip" -> gzip = Math.max(gzip, quality);
+                    case "deflate" -> deflate = quality;
+                    case "*" -> any = quality;
+                    default -> {
+                    }
+                }
+            }
+        }
+        if ((gzip < 0 ? any : gzip) > 0) {
+            return GZIP;
+        }
+        if ((deflate < 0 ? any : deflate) > 0) {
+            return DEFLATE;
+        }
+        return null;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,159 @@
+package server;
+
+import java.util.zip.Deflater;
+
+/**
+ * Startup settings of {@link HttpTaskServer}. Instances are immutable; every {@code with*} method returns a copy.
+ * <p>
+ * {@link #fromSystemProperties()} reads {@code kanban.port}, {@code kanban.executor}, {@code kanban.backlog},
+ * {@code kanban.poolSize}, {@code kanban.queueCapacity}, {@code kanban.maxBodySize},
+ * {@code kanban.compressionThreshold} and {@code kanban.compressionLevel}, falling back to the defaults.
+ */
+public class ServerConfig {
+    public static final int DEFAULT_PORT = 8080;
+    public static final long DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    private final int port;
+    private final ExecutorMode executorMode;
+    private final int backlog;
+    private final int poolSize;
+    private final int queueCapacity;
+    private final long maxBodySize;
+    private final int compressionThreshold;
+    private final int compressionLevel;
+
+    private ServerConfig(int port, ExecutorMode executorMode, int backlog, int poolSize, int queueCapacity,
+                         long maxBodySize, int compressionThreshold, int compressionLevel) {
+        if (backlog < 0 || poolSize < 1 || queueCapacity < 1 || maxBodySize < 1 || compressionThreshold < 0
+                || compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Некорректные параметры сервера.");
+        }
+        this.port = port;
+        this.executorMode = executorMode;
+        this.backlog = backlog;
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+        this.maxBodySize = maxBodySize;
+        this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+    }
+
+    public static ServerConfig defaults() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return new ServerConfig(DEFAULT_PORT, ExecutorMode.DISPATCHER, 0, processors * 2, 1024, DEFAULT_MAX_BODY_SIZE,
+                DEFAULT_COMPRESSION_THRESHOLD, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig defaults = defaults();
+        return new ServerConfig(
+                Integer.getInteger("kanban.port", defaults.port),
+                ExecutorMode.valueOf(System.getProperty("kanban.executor", defaults.executorMode.name())),
+                Integer.getInteger("kanban.backlog", defaults.backlog),
+                Integer.getInteger("kanban.poolSize", defaults.poolSize),
+                Integer.getInteger("kanban.queueCapacity", defaults.queueCapacity),
+                Long.getLong("kanban.maxBodySize", defaults.maxBodySize),
+                Integer.getInteger("kanban.compressionThreshold", defaults.compressionThreshold),
+                Integer.getInteger("kanban.compressionLevel", defaults.compressionLevel));
+    }
+
+    public ServerConfig withPort(int port) {
+
+        return new ServerConfig(port, executorMode, backlog, poolSize, queueCapacity, maxBodySize,
+                compressionThreshold, compressionLevel);
+    }
+
+    public ServerConfig withExecutorMode(ExecutorMode executorMode) {
+
+        return new ServerConfig(port, executorMode, backlog, poolSize, queueCapacity, maxBodySize,
+                compressionThreshold, compressionLevel);
+    }
+
+    public ServerConfig withBacklog(int backlog) {
+
+        return new ServerConfig(port, executorMode, backlog, poolSize, queueCapacity, maxBodySize,
+                compressionThreshold, compressionLevel);
+    }
+
+    public ServerConfig withPoolSize(int poolSize) {
+
+        return new ServerConfig(port, executorMode, backlog, poolSize, queueCapacity, maxBodySize,
+                compressionThreshold, compressionLevel);
+    }
+
+    public ServerConfig withQueueCapacity(int queueCapacity) {
+
+        return new ServerConfig(port, executorMode, backlog, poolSize, queueCapacity, maxBodySize,
+                compressionThreshold, compressionLevel);
+    }
+
+    /**
+     * Sets the largest request body, in bytes, that handlers will read; larger bodies are rejected with 413.
+     */
+    public ServerConfig withMaxBodySize(long maxBodySize) {
+
+        return new ServerConfig(port, executorMode, backlog, poolSize, queueCapacity, maxBodySize,
+                compressionThreshold, compressionLevel);
+    }
+
+    /**
+     * Sets the response size, in bytes, up to which bodies are sent uncompressed even if the client accepts
+     * gzip or deflate.
+     */
+    public ServerConfig withCompressionThreshold(int compressionThreshold) {
+
+        return new ServerConfig(port, executorMode, backlog, poolSize, queueCapacity, maxBodySize,
+                compressionThreshold, compressionLevel);
+    }
+
+    /**
+     * Sets the {@link Deflater} level, from {@link Deflater#DEFAULT_COMPRESSION} to {@link Deflater#BEST_COMPRESSION};
+     * {@link Deflater#NO_COMPRESSION} turns response compression off.
+     */
+    public ServerConfig withCompressionLevel(int compressionLevel) {
+
+        return new ServerConfig(port, executorMode, backlog, poolSize, queueCapacity, maxBodySize,
+                compressionThreshold, compressionLevel);
+    }
+
+    public int getPort() {
+
+        return port;
+    }
+
+    public ExecutorMode getExecutorMode() {
+
+        return executorMode;
+    }
+
+    public int getBacklog() {
+
+        return backlog;
+    }
+
+    public int getPoolSize() {
+
+        return poolSize;
+    }
+
+    public int getQueueCapacity() {
+
+        return queueCapacity;
+    }
+
+    public long getMaxBodySize() {
+
+        return maxBodySize;
+    }
+
+    public int getCompressionThreshold() {
+
+        return compressionThreshold;
+    }
+
+    public int getCompressionLevel() {
+
+        return compressionLevel;
+    }
+}
@@ -1,19 +1,30 @@
 package server.gson;
 
-import com.google.gson.*;
-import java.lang.reflect.Type;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.time.Duration;
 
-public class DurationTypeAdapter implements JsonSerializer<Duration>, JsonDeserializer<Duration> {
+public class DurationTypeAdapter extends TypeAdapter<Duration> {
 
     @Override
-    public JsonElement serialize(Duration src, Type typeOfSrc, JsonSerializationContext context) {
-        return new JsonPrimitive(src.toString());
+    public void write(JsonWriter out, Duration value) throws IOException {
+        if (value != null) {
+            out.value(value.toString());
+        } else {
+            out.nullValue();
+        }
     }
 
     @Override
-    public Duration deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-
-        return Duration.parse(json.getAsString());
+    public Duration read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return Duration.parse(in.nextString());
     }
 }
@@ -0,0 +1,186 @@
+package server.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import tasks.Epic;
+import tasks.SubTask;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Streaming adapters for the task model and its time types, written field by field without reflection
+ * or an intermediate JSON tree. Each class gets its own adapter, so a task is written with the fields of its
+ * runtime class: subtasks add {@code epicId}, epics add {@code subTasks} and {@code endTime}.
+ * <p>
+ * The JSON shape is the one the reflective setup produced: subclass fields before the inherited ones, nulls
+ * omitted, and for epics the task fields followed by {@code subTasks} and {@code endTime}. Unknown fields are
+ * skipped, incoming epic subtasks are ignored (the task manager attaches them), and a missing status leaves
+ * the constructor default.
+ */
+public class TaskTypeAdapterFactory implements TypeAdapterFactory {
+    private static final TypeAdapter<Duration> DURATION = new DurationTypeAdapter().nullSafe();
+    private static final TypeAdapter<LocalDateTime> DATE_TIME = new LocalDateTimeTypeAdapter().nullSafe();
+    private static final TypeAdapter<Task> TASK = new TaskAdapter().nullSafe();
+    private static final TypeAdapter<SubTask> SUB_TASK = new SubTaskAdapter().nullSafe();
+    private static final TypeAdapter<Epic> EPIC = new EpicAdapter().nullSafe();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        TypeAdapter<?> adapter;
+        if (raw == Task.class) {
+            adapter = TASK;
+        } else if (raw == SubTask.class) {
+            adapter = SUB_TASK;
+        } else if (raw == Epic.class) {
+            adapter = EPIC;
+        } else if (raw == Duration.class) {
+            adapter = DURATION;
+        } else if (raw == LocalDateTime.class) {
+            adapter = DATE_TIME;
+        } else {
+            return null;
+        }
+        return (TypeAdapter<T>) adapter;
+    }
+
+    private static void writeTaskFields(JsonWriter out, Task task) throws IOException {
+        out.name("id").value(task.getId());
+        out.name("name").value(task.getName());
+        out.name("status");
+        if (task.getStatus() != null) {
+            out.value(task.getStatus().name());
+        } else {
+            out.nullValue();
+        }
+        out.name("duration");
+        DURATION.write(out, task.getDuration());
+        out.name("startTime");
+        DATE_TIME.write(out, task.getStartTime());
+    }
+
+    private static Fields readFields(JsonReader in) throws IOException {
+        Fields fields = new Fields();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id" -> fields.id = in.nextInt();
+                case "name" -> fields.name = in.nextString();
+                case "status" -> fields.status = readStatus(in);
+                case "duration" -> fields.duration = DURATION.read(in);
+                case "startTime" -> fields.startTime = DATE_TIME.read(in);
+                case "endTime" -> fields.endTime = DATE_TIME.read(in);
+                case "epicId" -> fields.epicId = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return fields;
+    }
+
+    private static TaskStatus readStatus(JsonReader in) throws IOException {
+        String value = in.nextString();
+        try {
+            return TaskStatus.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Unknown task status '" + value + "' at " + in.getPreviousPath(), e);
+        }
+    }
+
+    private static final class Fields {
+        private int id;
+        private String name;
+        private TaskStatus status;
+        private Duration duration;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private int epicId;
+
+        void applyStatus(Task task) {
+            if (status != null) {
+                task.setStatus(status);
+            }
+        }
+    }
+
+    private static final class TaskAdapter extends TypeAdapter<Task> {
+
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            out.beginObject();
+            writeTaskFields(out, task);
+            out.endObject();
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            Fields fields = readFields(in);
+            Task task = new Task(fields.id, fields.name, fields.duration, fields.startTime);
+            fields.applyStatus(task);
+            return task;
+        }
+    }
+
+    private static final class SubTaskAdapter extends TypeAdapter<SubTask> {
+
+        @Override
+        public void write(JsonWriter out, SubTask subTask) throws IOException {
+            out.beginObject();
+            out.name("epicId").value(subTask.getEpicId());
+            writeTaskFields(out, subTask);
+            out.endObject();
+        }
+
+        @Override
+        public SubTask read(JsonReader in) throws IOException {
+            Fields fields = readFields(in);
+            SubTask subTask = new SubTask(fields.id, fields.name, fields.epicId, fields.duration, fields.startTime);
+            fields.applyStatus(subTask);
+            return subTask;
+        }
+    }
+
+    private static final class EpicAdapter extends TypeAdapter<Epic> {
+
+        @Override
+        public void write(JsonWriter out, Epic epic) throws IOException {
+            out.beginObject();
+            writeTaskFields(out, epic);
+            out.name("subTasks").beginArray();
+            for (SubTask subTask : epic.getSubTasks()) {
+                SUB_TASK.write(out, subTask);
+            }
+            out.endArray();
+            out.name("endTime");
+            DATE_TIME.write(out, epic.getEndTime());
+            out.endObject();
+        }
+
+        @Override
+        public Epic read(JsonReader in) throws IOException {
+            Fields fields = readFields(in);
+            Epic epic = new Epic(fields.id, fields.name);
+            epic.setDuration(fields.duration);
+            epic.setStartTime(fields.startTime);
+            epic.setEndTime(fields.endTime);
+            fields.applyStatus(epic);
+            return epic;
+        }
+    }
+}
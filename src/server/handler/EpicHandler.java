@@ -4,10 +4,15 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.TaskManager;
 import server.BaseHttpHandler;
+import server.BodyTooLargeException;
+import server.InvalidContentLengthException;
+import server.PageRequest;
+import server.PagedIterable;
+import server.ServerConfig;
 import tasks.Epic;
+import tasks.SubTask;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -18,13 +23,23 @@ public class EpicHandler extends BaseHttpHandler {
     private static final Logger logger = Logger.getLogger(EpicHandler.class.getName());
 
     public EpicHandler(TaskManager taskManager, Gson gson) {
+        this(taskManager, gson, ServerConfig.defaults());
+    }
+
+    public EpicHandler(TaskManager taskManager, Gson gson, ServerConfig config) {
+        super(config);
         this.taskManager = taskManager;
         this.gson = gson;
     }
 
     @Override
     protected void processGet(HttpExchange exchange) throws IOException {
-        handleGetEpics(exchange);
+        String[] pathParts = exchange.getRequestURI().getPath().split("/");
+        if (pathParts.length == 4 && pathParts[3].equals("subtasks")) {
+            handleGetEpicSubtasks(exchange, pathParts[2]);
+        } else {
+            handleGetEpics(exchange);
+        }
     }
 
     @Override
@@ -38,9 +53,42 @@ public class EpicHandler extends BaseHttpHandler {
     }
 
     private void handleGetEpics(HttpExchange exchange) throws IOException {
+        PageRequest page;
+        try {
+            page = PageRequest.parse(queryParams(exchange));
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, "Invalid page parameters");
+            return;
+        }
         try {
-            List<Epic> epics = taskManager.getAllEpics();
-            sendResponse(exchange, 200, gson.toJson(epics));
+            if (sendNotModifiedIfMatches(exchange, taskManager.getVersion())) {
+                return;
+            }
+            if (page != null) {
+                List<Epic> items = taskManager.getEpicsPage(page.after(), page.limit());
+                sendJsonPage(exchange, gson, items, page.nextCursor(items));
+                return;
+            }
+            sendJsonArray(exchange, gson, new PagedIterable<>(taskManager::getEpicsPage));
+        } catch (Exception e) {
+            handleError(exchange, e);
+        }
+    }
+
+    private void handleGetEpicSubtasks(HttpExchange exchange, String epicIdPart) throws IOException {
+        try {
+            int epicId = Integer.parseInt(epicIdPart);
+            long version = taskManager.getVersion();
+            if (!taskManager.hasEpic(epicId)) {
+                sendNotFound(exchange);
+                return;
+            }
+            if (sendNotModifiedIfMatches(exchange, version)) {
+                return;
+            }
+            sendJsonArray(exchange, gson, taskManager.getEpicSubtasks(epicId));
+        } catch (NumberFormatException e) {
+            sendNotFound(exchange);
         } catch (Exception e) {
             handleError(exchange, e);
         }
@@ -48,9 +96,13 @@ public class EpicHandler extends BaseHttpHandler {
 
     private void handlePostEpic(HttpExchange exchange) throws IOException {
         try {
-            Epic epic = readRequestBody(exchange);
+            Epic epic = readJson(exchange, gson, Epic.class);
             Epic createdEpic = taskManager.createEpic(epic);
-            sendResponse(exchange, 201, gson.toJson(createdEpic));
+            sendJson(exchange, gson, 201, createdEpic);
+        } catch (BodyTooLargeException e) {
+            sendPayloadTooLarge(exchange);
+        } catch (InvalidContentLengthException e) {
+            sendBadRequest(exchange, "Invalid Content-Length");
         } catch (Exception e) {
             handleError(exchange, e);
         }
@@ -107,11 +159,6 @@ public class EpicHandler extends BaseHttpHandler {
         throw new IllegalArgumentException("Epic ID not found in query");
     }
 
-    private Epic readRequestBody(HttpExchange exchange) throws IOException {
-        String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        return gson.fromJson(requestBody, Epic.class);
-    }
-
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
         sendText(exchange, statusCode, response);
     }
@@ -4,10 +4,9 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.TaskManager;
 import server.BaseHttpHandler;
-import tasks.Task;
+import server.ServerConfig;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,6 +16,11 @@ public class HistoryHandler extends BaseHttpHandler {
     private static final Logger logger = Logger.getLogger(HistoryHandler.class.getName());
 
     public HistoryHandler(TaskManager taskManager, Gson gson) {
+        this(taskManager, gson, ServerConfig.defaults());
+    }
+
+    public HistoryHandler(TaskManager taskManager, Gson gson, ServerConfig config) {
+        super(config);
         this.taskManager = taskManager;
         this.gson = gson;
     }
@@ -28,9 +32,10 @@ public class HistoryHandler extends BaseHttpHandler {
 
     private void handleGetHistory(HttpExchange exchange) throws IOException {
         try {
-            List<Task> historyTasks = taskManager.getHistory();
-            String response = gson.toJson(historyTasks);
-            sendText(exchange, 200, response);
+            if (sendNotModifiedIfMatches(exchange, taskManager.getHistoryVersion(), taskManager.getVersion())) {
+                return;
+            }
+            sendJsonArray(exchange, gson, taskManager.getHistory());
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Internal server error", e);
             sendText(exchange, 500, "{\"error\":\"Internal server error\"}");
@@ -1,13 +1,18 @@
 package server.handler;
 
 import server.BaseHttpHandler;
+import server.ServerConfig;
+import manager.PrioritizedSnapshot;
 import manager.TaskManager;
 import tasks.Task;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,8 +25,14 @@ public class PrioritizedTaskHandler extends BaseHttpHandler {
 
     private final TaskManager taskManager;
     private final Gson gson;
+    private volatile CachedBody cachedBody;
 
     public PrioritizedTaskHandler(TaskManager taskManager, Gson gson) {
+        this(taskManager, gson, ServerConfig.defaults());
+    }
+
+    public PrioritizedTaskHandler(TaskManager taskManager, Gson gson, ServerConfig config) {
+        super(config);
         this.taskManager = taskManager;
         this.gson = gson;
     }
@@ -33,9 +44,16 @@ public class PrioritizedTaskHandler extends BaseHttpHandler {
 
     private void handleGetPrioritizedTasks(HttpExchange exchange) throws IOException {
         try {
-            List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-            String response = gson.toJson(prioritizedTasks);
-            sendResponse(exchange, STATUS_OK, response);
+            long version = taskManager.getVersion();
+            Map<String, String> params = queryParams(exchange);
+            if (params.containsKey("from") || params.containsKey("to") || params.containsKey("limit")) {
+                handleGetRange(exchange, params, version);
+                return;
+            }
+            if (sendNotModifiedIfMatches(exchange, version)) {
+                return;
+            }
+            sendBytes(exchange, STATUS_OK, serialize(taskManager.getPrioritizedSnapshot()));
         } catch (UnsupportedOperationException e) {
             LOGGER.log(Level.WARNING, "Unsupported operation: ", e);
             sendResponse(exchange, STATUS_NOT_ACCEPTABLE, "{\"error\":\"Not acceptable\"}");
@@ -45,12 +63,59 @@ public class PrioritizedTaskHandler extends BaseHttpHandler {
         }
     }
 
-    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, response.length());
-        try (var os = exchange.getResponseBody()) {
-            os.write(response.getBytes());
+    /**
+     * Answers {@code ?from=&to=&limit=}: tasks starting in [from, to), each bound optional, as a streamed array.
+     * The parameters are checked first, so a matching {@code If-None-Match} gets 304 before the range is read.
+     */
+    private void handleGetRange(HttpExchange exchange, Map<String, String> params, long version) throws IOException {
+        LocalDateTime from;
+        LocalDateTime to;
+        int limit;
+        try {
+            from = parseTime(params.get("from"));
+            to = parseTime(params.get("to"));
+            String limitParam = params.get("limit");
+            limit = limitParam == null ? Integer.MAX_VALUE : Integer.parseInt(limitParam);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            sendBadRequest(exchange, "Invalid range parameters");
+            return;
+        }
+        if (limit < 1 || (from != null && to != null && from.isAfter(to))) {
+            sendBadRequest(exchange, "Invalid range parameters");
+            return;
         }
+        if (sendNotModifiedIfMatches(exchange, version)) {
+            return;
+        }
+        sendJsonArray(exchange, gson, taskManager.getPrioritizedTasks(from, to, limit));
+    }
+
+    private static LocalDateTime parseTime(String value) {
+
+        return value == null || value.isEmpty() ? null : LocalDateTime.parse(value);
+    }
+
+    /**
+     * Returns the JSON of the snapshot, reusing the bytes produced for the same version by an earlier request.
+     */
+    private byte[] serialize(PrioritizedSnapshot snapshot) {
+        CachedBody cached = cachedBody;
+        if (cached != null && cached.version() == snapshot.version()) {
+            return cached.body();
+        }
+        byte[] body = gson.toJson(snapshot.tasks()).getBytes(StandardCharsets.UTF_8);
+        if (snapshot.version() != PrioritizedSnapshot.UNVERSIONED) {
+            cachedBody = new CachedBody(snapshot.version(), body);
+        }
+        return body;
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+
+        sendText(exchange, statusCode, response);
+    }
+
+    private record CachedBody(long version, byte[] body) {
     }
 }
 
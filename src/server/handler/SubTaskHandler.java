@@ -4,10 +4,14 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.TaskManager;
 import server.BaseHttpHandler;
+import server.BodyTooLargeException;
+import server.InvalidContentLengthException;
+import server.PageRequest;
+import server.PagedIterable;
+import server.ServerConfig;
 import tasks.SubTask;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -18,6 +22,11 @@ public class SubTaskHandler extends BaseHttpHandler {
     private static final Logger logger = Logger.getLogger(SubTaskHandler.class.getName());
 
     public SubTaskHandler(TaskManager taskManager, Gson gson) {
+        this(taskManager, gson, ServerConfig.defaults());
+    }
+
+    public SubTaskHandler(TaskManager taskManager, Gson gson, ServerConfig config) {
+        super(config);
         this.taskManager = taskManager;
         this.gson = gson;
     }
@@ -38,9 +47,23 @@ public class SubTaskHandler extends BaseHttpHandler {
     }
 
     private void handleGetSubTasks(HttpExchange exchange) throws IOException {
+        PageRequest page;
+        try {
+            page = PageRequest.parse(queryParams(exchange));
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, "Invalid page parameters");
+            return;
+        }
         try {
-            List<SubTask> subtasks = taskManager.getAllSubTasks();
-            sendResponse(exchange, 200, gson.toJson(subtasks));
+            if (sendNotModifiedIfMatches(exchange, taskManager.getVersion())) {
+                return;
+            }
+            if (page != null) {
+                List<SubTask> items = taskManager.getSubTasksPage(page.after(), page.limit());
+                sendJsonPage(exchange, gson, items, page.nextCursor(items));
+                return;
+            }
+            sendJsonArray(exchange, gson, new PagedIterable<>(taskManager::getSubTasksPage));
         } catch (Exception e) {
             handleError(exchange, e);
         }
@@ -48,9 +71,13 @@ public class SubTaskHandler extends BaseHttpHandler {
 
     private void handlePostSubTask(HttpExchange exchange) throws IOException {
         try {
-            SubTask subtask = readRequestBody(exchange);
+            SubTask subtask = readJson(exchange, gson, SubTask.class);
             SubTask createdSubTask = taskManager.createSubTask(subtask);
-            sendResponse(exchange, 201, gson.toJson(createdSubTask));
+            sendJson(exchange, gson, 201, createdSubTask);
+        } catch (BodyTooLargeException e) {
+            sendPayloadTooLarge(exchange);
+        } catch (InvalidContentLengthException e) {
+            sendBadRequest(exchange, "Invalid Content-Length");
         } catch (Exception e) {
             handleError(exchange, e);
         }
@@ -108,11 +135,6 @@ public class SubTaskHandler extends BaseHttpHandler {
         throw new IllegalArgumentException("Subtask ID not found in query");
     }
 
-    private SubTask readRequestBody(HttpExchange exchange) throws IOException {
-        String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        return gson.fromJson(requestBody, SubTask.class);
-    }
-
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
         sendText(exchange, statusCode, response);
     }
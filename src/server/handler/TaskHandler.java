@@ -4,10 +4,14 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.TaskManager;
 import server.BaseHttpHandler;
+import server.BodyTooLargeException;
+import server.InvalidContentLengthException;
+import server.PageRequest;
+import server.PagedIterable;
+import server.ServerConfig;
 import tasks.Task;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -18,6 +22,11 @@ public class TaskHandler extends BaseHttpHandler {
     private static final Logger logger = Logger.getLogger(TaskHandler.class.getName());
 
     public TaskHandler(TaskManager taskManager, Gson gson) {
+        this(taskManager, gson, ServerConfig.defaults());
+    }
+
+    public TaskHandler(TaskManager taskManager, Gson gson, ServerConfig config) {
+        super(config);
         this.taskManager = taskManager;
         this.gson = gson;
     }
@@ -38,10 +47,23 @@ public class TaskHandler extends BaseHttpHandler {
     }
 
     private void handleGetTasks(HttpExchange exchange) throws IOException {
+        PageRequest page;
+        try {
+            page = PageRequest.parse(queryParams(exchange));
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, "Invalid page parameters");
+            return;
+        }
         try {
-            List<Task> tasks = taskManager.getAllTasks();
-            String response = gson.toJson(tasks);
-            sendText(exchange, 200, response);
+            if (sendNotModifiedIfMatches(exchange, taskManager.getVersion())) {
+                return;
+            }
+            if (page != null) {
+                List<Task> items = taskManager.getTasksPage(page.after(), page.limit());
+                sendJsonPage(exchange, gson, items, page.nextCursor(items));
+                return;
+            }
+            sendJsonArray(exchange, gson, new PagedIterable<>(taskManager::getTasksPage));
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Internal server error", e);
             sendText(exchange, 500, "{\"error\":\"Internal server error\"}");
@@ -50,10 +72,13 @@ public class TaskHandler extends BaseHttpHandler {
 
     private void handlePostTask(HttpExchange exchange) throws IOException {
         try {
-            String requestBody = readRequestBody(exchange);
-            Task task = gson.fromJson(requestBody, Task.class);
+            Task task = readJson(exchange, gson, Task.class);
             Task createdTask = taskManager.createTask(task);
             respondToCreateTask(exchange, createdTask);
+        } catch (BodyTooLargeException e) {
+            sendPayloadTooLarge(exchange);
+        } catch (InvalidContentLengthException e) {
+            sendBadRequest(exchange, "Invalid Content-Length");
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Internal server error", e);
             sendText(exchange, 500, "{\"error\":\"Internal server error\"}");
@@ -74,15 +99,11 @@ public class TaskHandler extends BaseHttpHandler {
         }
     }
 
-    private String readRequestBody(HttpExchange exchange) throws IOException {
-        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-    }
-
     private void respondToCreateTask(HttpExchange exchange, Task createdTask) throws IOException {
         if (createdTask == null) {
             sendHasInteractions(exchange);
         } else {
-            sendText(exchange, 201, gson.toJson(createdTask));
+            sendJson(exchange, gson, 201, createdTask);
         }
     }
 
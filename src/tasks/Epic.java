@@ -1,46 +1,55 @@
 package tasks;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class Epic extends Task {
-    private final List<SubTask> subTasks = new ArrayList<>();
-    private LocalDateTime endTime;
+    private transient Map<Integer, SubTask> subTasks;
+    private transient Aggregates aggregates;
 
+    /**
+     * Creates an epic without subtasks; its status is {@link TaskStatus#NEW} and it has no times.
+     */
     public Epic(int id, String name) {
-        super(id, name);
-        this.status = calculateStatus();
+        super(id, name, null);
     }
 
-    @Override
-    public LocalDateTime getEndTime() {
-
-        return endTime;
+    /**
+     * Copies the epic together with its subtask links; the aggregates are rebuilt from the subtasks on first use.
+     */
+    public Epic(Epic other) {
+        super(other);
+        this.subTasks = new LinkedHashMap<>(other.subTaskMap());
     }
 
     public void setEndTime(LocalDateTime endTime) {
 
-        this.endTime = endTime;
+        fixEndTime(endTime);
     }
 
     public void addSubTask(SubTask subTask) {
         if (subTask.getId() == getId()) {
             throw new IllegalArgumentException("Подзадача не может быть своим собственным эпиком.");
         }
-        subTasks.add(subTask);
+        subTaskMap().put(subTask.getId(), subTask);
+        aggregates().put(subTask);
     }
 
     public void deleteSubTask(SubTask subTask) {
-
-        subTasks.removeIf(s -> s.getId() == subTask.getId());
+        subTaskMap().remove(subTask.getId());
+        aggregates().remove(subTask.getId());
     }
 
     public void removeSubTasksList() {
-
-        subTasks.clear();
+        subTaskMap().clear();
+        aggregates().clear();
     }
 
     @Override
@@ -49,59 +58,48 @@ public class Epic extends Task {
         return TaskType.EPIC;
     }
 
-    public List<SubTask> getSubTasks() {
+    /**
+     * Returns a read-only live view of the subtasks in the order they were first attached.
+     */
+    public Collection<SubTask> getSubTasks() {
 
-        return new ArrayList<>(subTasks);
+        return Collections.unmodifiableCollection(subTaskMap().values());
     }
 
+    /**
+     * Derives the epic status from the maintained per-status counters, without scanning the subtasks.
+     */
     public TaskStatus calculateStatus() {
-        if (subTasks.isEmpty()) {
+        Aggregates aggregates = aggregates();
+        int size = aggregates.contributions.size();
+        if (size == 0) {
             return TaskStatus.NEW;
         }
 
-        boolean allDone = true;
-        boolean anyInProgressOrDone = false;
-
-        for (SubTask subTask : subTasks) {
-            TaskStatus status = subTask.getStatus();
-
-            if (status == TaskStatus.IN_PROGRESS || status == TaskStatus.DONE) {
-                anyInProgressOrDone = true;
-            }
-            if (status != TaskStatus.DONE) {
-                allDone = false;
-            }
-        }
-
-        if (allDone) {
+        int done = aggregates.statusCounts[TaskStatus.DONE.ordinal()];
+        if (done == size) {
             return TaskStatus.DONE;
         }
-        if (anyInProgressOrDone) {
+        if (done > 0 || aggregates.statusCounts[TaskStatus.IN_PROGRESS.ordinal()] > 0) {
             return TaskStatus.IN_PROGRESS;
         }
 
         return TaskStatus.NEW;
     }
 
+    /**
+     * Applies the maintained start, end and duration aggregates to the epic.
+     */
     public void createEpicDateTime() {
-        if (subTasks.isEmpty()) {
+        Aggregates aggregates = aggregates();
+        if (aggregates.contributions.isEmpty()) {
             resetTiming();
             return;
         }
 
-        Optional<LocalDateTime> minStartTime = subTasks.stream()
-                .map(SubTask::getStartTime)
-                .min(LocalDateTime::compareTo);
-        Optional<LocalDateTime> maxEndTime = subTasks.stream()
-                .map(SubTask::getEndTime)
-                .max(LocalDateTime::compareTo);
-        Optional<Duration> totalDuration = subTasks.stream()
-                .map(SubTask::getDuration)
-                .reduce(Duration::plus);
-
-        setStartTime(minStartTime.orElse(null));
-        setEndTime(maxEndTime.orElse(null));
-        setDuration(totalDuration.orElse(null));
+        setStartTime(aggregates.starts.isEmpty() ? null : aggregates.starts.firstKey());
+        setEndTime(aggregates.ends.isEmpty() ? null : aggregates.ends.lastKey());
+        setDuration(aggregates.durations == 0 ? null : aggregates.totalDuration);
     }
 
     private void resetTiming() {
@@ -115,4 +113,89 @@ public class Epic extends Task {
         return String.format("Эпик='%s', ID=%d, Статус='%s', Начало='%s', Продолжительность='%s'",
                 name, id, status, startTime, duration);
     }
-}
\ No newline at end of file
+
+    // Epics built by Gson skip field initializers, so the subtasks and aggregates are created on first use.
+    private Map<Integer, SubTask> subTaskMap() {
+        if (subTasks == null) {
+            subTasks = new LinkedHashMap<>();
+        }
+        return subTasks;
+    }
+
+    private Aggregates aggregates() {
+        if (aggregates == null) {
+            aggregates = new Aggregates();
+            subTaskMap().values().forEach(aggregates::put);
+        }
+        return aggregates;
+    }
+
+    /**
+     * Values a subtask contributed when it was attached. Subtasks are mutable, so removal subtracts
+     * the recorded values rather than the current ones.
+     */
+    private record Contribution(TaskStatus status, LocalDateTime start, LocalDateTime end, Duration duration) {
+    }
+
+    /**
+     * Status counters, a running total duration and multisets of start and end times, kept per subtask id
+     * and updated in O(log k) on every change.
+     */
+    private static final class Aggregates {
+        private final Map<Integer, Contribution> contributions = new HashMap<>();
+        private final int[] statusCounts = new int[TaskStatus.values().length];
+        private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+        private Duration totalDuration = Duration.ZERO;
+        private int durations;
+
+        void put(SubTask subTask) {
+            remove(subTask.getId());
+            Contribution contribution = new Contribution(subTask.getStatus(), subTask.getStartTime(),
+                    subTask.getEndTime(), subTask.getDuration());
+            contributions.put(subTask.getId(), contribution);
+            statusCounts[contribution.status().ordinal()]++;
+            increment(starts, contribution.start());
+            increment(ends, contribution.end());
+            if (contribution.duration() != null) {
+                totalDuration = totalDuration.plus(contribution.duration());
+                durations++;
+            }
+        }
+
+        void remove(int id) {
+            Contribution contribution = contributions.remove(id);
+            if (contribution == null) {
+                return;
+            }
+            statusCounts[contribution.status().ordinal()]--;
+            decrement(starts, contribution.start());
+            decrement(ends, contribution.end());
+            if (contribution.duration() != null) {
+                totalDuration = totalDuration.minus(contribution.duration());
+                durations--;
+            }
+        }
+
+        void clear() {
+            contributions.clear();
+            Arrays.fill(statusCounts, 0);
+            starts.clear();
+            ends.clear();
+            totalDuration = Duration.ZERO;
+            durations = 0;
+        }
+
+        private static void increment(TreeMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+            if (key != null) {
+                multiset.merge(key, 1, Integer::sum);
+            }
+        }
+
+        private static void decrement(TreeMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+            if (key != null) {
+                multiset.computeIfPresent(key, (ignored, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
+}
@@ -7,19 +7,13 @@ public class SubTask extends Task {
     private int epicId;
 
     public SubTask(int id, String name, int epicId, Duration duration, LocalDateTime startTime) {
-        super(id, name);
-        this.status = TaskStatus.NEW;
+        super(id, name, duration, startTime);
         this.epicId = epicId;
-        this.duration = duration;
-        this.startTime = startTime;
     }
 
     public SubTask(SubTask other) {
-        super(other.getId(), other.getName());
-        this.status = other.getStatus();
+        super(other);
         this.epicId = other.getEpicId();
-        this.duration = other.getDuration();
-        this.startTime = other.getStartTime();
     }
 
     public int getEpicId() {
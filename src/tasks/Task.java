@@ -2,6 +2,7 @@ package tasks;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Objects;
 
 public class Task {
@@ -10,11 +11,34 @@ public class Task {
     protected TaskStatus status;
     protected Duration duration;
     protected LocalDateTime startTime;
+    // Set for epics, whose end comes from their subtasks instead of the start time and duration.
+    private transient boolean endTimeFixed;
+    private transient LocalDateTime fixedEndTime;
+    // Derived from startTime and duration; transient, and rebuilt on first use for tasks Gson created.
+    private transient boolean timesValid;
+    private transient LocalDateTime endTime;
+    private transient long startSecond;
+    private transient int startNano;
+    private transient long endSecond;
+    private transient int endNano;
 
     public Task(int id, String name) {
         this.id = id;
         this.name = name;
         this.status = TaskStatus.NEW;
+        refreshTimes();
+    }
+
+    /**
+     * Creates a task whose end time is set explicitly instead of being derived from the start time and duration.
+     */
+    protected Task(int id, String name, LocalDateTime endTime) {
+        this.id = id;
+        this.name = name;
+        this.status = TaskStatus.NEW;
+        this.endTimeFixed = true;
+        this.fixedEndTime = endTime;
+        refreshTimes();
     }
 
     public Task(int id, String name, Duration duration, LocalDateTime startTime) {
@@ -23,6 +47,7 @@ public class Task {
         this.status = TaskStatus.NEW;
         this.duration = duration;
         this.startTime = startTime;
+        refreshTimes();
     }
 
     public Task(Task other) {
@@ -31,6 +56,9 @@ public class Task {
         this.status = other.status;
         this.duration = other.duration;
         this.startTime = other.startTime;
+        this.endTimeFixed = other.endTimeFixed;
+        this.fixedEndTime = other.fixedEndTime;
+        refreshTimes();
     }
 
     public int getId() {
@@ -76,6 +104,7 @@ public class Task {
     public void setDuration(Duration duration) {
 
         this.duration = duration;
+        refreshTimes();
     }
 
     public LocalDateTime getStartTime() {
@@ -86,9 +115,61 @@ public class Task {
     public void setStartTime(LocalDateTime startTime) {
 
         this.startTime = startTime;
+        refreshTimes();
     }
 
     public LocalDateTime getEndTime() {
+        ensureTimes();
+        return endTime;
+    }
+
+    /**
+     * Start as UTC epoch seconds; meaningful only when the start time is set.
+     */
+    public long getStartEpochSecond() {
+        ensureTimes();
+        return startSecond;
+    }
+
+    public int getStartNano() {
+        ensureTimes();
+        return startNano;
+    }
+
+    /**
+     * End as UTC epoch seconds; meaningful only when the end time is set.
+     */
+    public long getEndEpochSecond() {
+        ensureTimes();
+        return endSecond;
+    }
+
+    public int getEndNano() {
+        ensureTimes();
+        return endNano;
+    }
+
+    /**
+     * Compares start times on the cached epoch values, without allocating. Both tasks must have a start time.
+     */
+    public int compareStartTime(Task other) {
+        int cmp = Long.compare(getStartEpochSecond(), other.getStartEpochSecond());
+        return cmp != 0 ? cmp : Integer.compare(getStartNano(), other.getStartNano());
+    }
+
+    /**
+     * Makes the end time independent of the start time and duration and sets it.
+     */
+    protected final void fixEndTime(LocalDateTime endTime) {
+        this.endTimeFixed = true;
+        this.fixedEndTime = endTime;
+        refreshTimes();
+    }
+
+    private LocalDateTime calculateEndTime() {
+        if (endTimeFixed) {
+            return fixedEndTime;
+        }
         if (startTime == null) {
             return null;
         }
@@ -98,6 +179,28 @@ public class Task {
         return startTime.plus(duration);
     }
 
+    /**
+     * Recomputes the cached end time and epoch values; called whenever the start, duration or end changes.
+     */
+    private void refreshTimes() {
+        endTime = calculateEndTime();
+        if (startTime != null) {
+            startSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+            startNano = startTime.getNano();
+        }
+        if (endTime != null) {
+            endSecond = endTime.toEpochSecond(ZoneOffset.UTC);
+            endNano = endTime.getNano();
+        }
+        timesValid = true;
+    }
+
+    private void ensureTimes() {
+        if (!timesValid) {
+            refreshTimes();
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,96 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import manager.storage.BinarySnapshot;
+import tasks.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class BinarySnapshotTest {
+    private Path path;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        path = Files.createTempFile("tasks", ".bin");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    void shouldRoundTripAllTaskTypes() throws IOException {
+        Task task = new Task(1, "Купить хлеб, молоко", Duration.ofMinutes(90).plusSeconds(7),
+                LocalDateTime.of(2024, 7, 12, 1, 14, 20, 826053000));
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        Task unnamed = new Task(2, null);
+        Epic epic = new Epic(3, "Epic");
+        epic.setStatus(TaskStatus.DONE);
+        SubTask subTask = new SubTask(4, "SubTask", 3, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0));
+
+        BinarySnapshot.write(path, List.of(task, unnamed), List.of(epic), List.of(subTask));
+        List<Task> loaded = new ArrayList<>();
+        BinarySnapshot.read(path, loaded::add);
+
+        assertEquals(4, loaded.size());
+        Task loadedTask = loaded.get(0);
+        assertEquals(task.getName(), loadedTask.getName(), "Запятые в имени должны сохраняться");
+        assertEquals(task.getStartTime(), loadedTask.getStartTime());
+        assertEquals(task.getDuration(), loadedTask.getDuration());
+        assertEquals(TaskStatus.IN_PROGRESS, loadedTask.getStatus());
+        assertNull(loaded.get(1).getName());
+        assertNull(loaded.get(1).getStartTime());
+        assertInstanceOf(Epic.class, loaded.get(2));
+        assertEquals(TaskStatus.DONE, loaded.get(2).getStatus());
+        SubTask loadedSubTask = assertInstanceOf(SubTask.class, loaded.get(3));
+        assertEquals(3, loadedSubTask.getEpicId());
+    }
+
+    @Test
+    void shouldSpanMultipleBlocks() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            tasks.add(new Task(i, "Task " + i, Duration.ofMinutes(i), LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i)));
+        }
+        tasks.add(new Task(20_000, "x".repeat(200_000)));
+
+        BinarySnapshot.write(path, tasks, List.of(), List.of());
+        List<Task> loaded = new ArrayList<>();
+        BinarySnapshot.read(path, loaded::add);
+
+        assertEquals(tasks.size(), loaded.size());
+        assertEquals(tasks.get(12_345).getStartTime(), loaded.get(12_345).getStartTime());
+        assertEquals(200_000, loaded.getLast().getName().length());
+    }
+
+    @Test
+    void shouldDetectCorruptedBlock() throws IOException {
+        BinarySnapshot.write(path, List.of(new Task(1, "Task")), List.of(), List.of());
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(20);
+            file.write(0x7F);
+        }
+
+        assertThrows(IOException.class, () -> BinarySnapshot.read(path, task -> { }));
+    }
+
+    @Test
+    void csvFileShouldNotBeDetectedAsBinary() throws IOException {
+        Files.writeString(path, "id,type,name,status,epicId,startTime,duration\n");
+
+        assertFalse(BinarySnapshot.isBinary(path));
+    }
+}
@@ -0,0 +1,65 @@
+package logic;
+
+import manager.CompactTaskManager;
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import tasks.Task;
+import tasks.TaskStatus;
+import tasks.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Compares the retained heap of {@link InMemoryTaskManager} and {@link CompactTaskManager} holding the same tasks,
+ * and times a status scan over the compact store.
+ * <p>
+ * Usage: {@code java logic.CompactStoreFootprintBenchmark [tasks] [compact|both]}
+ */
+public class CompactStoreFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        boolean both = args.length < 2 || args[1].equals("both");
+
+        if (both) {
+            long before = usedMemory();
+            TaskManager objects = fill(new InMemoryTaskManager(new InMemoryHistoryManager()), count);
+            report("InMemoryTaskManager", objects, usedMemory() - before, count);
+            objects = null;
+        }
+
+        long before = usedMemory();
+        CompactTaskManager compact = (CompactTaskManager) fill(new CompactTaskManager(new InMemoryHistoryManager()), count);
+        report("CompactTaskManager", compact, usedMemory() - before, count);
+
+        for (int run = 0; run < 5; run++) {
+            long started = System.nanoTime();
+            int done = compact.countByStatus(TaskType.TASK, TaskStatus.NEW);
+            System.out.printf("status scan: %,d matches in %d ms%n", done, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private static TaskManager fill(TaskManager manager, int count) {
+        LocalDateTime base = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Duration duration = Duration.ofMinutes(2);
+        for (int i = 0; i < count; i++) {
+            manager.createTask(new Task(0, "Task " + i, duration, base.plusMinutes(3L * i)));
+        }
+        return manager;
+    }
+
+    private static void report(String name, TaskManager manager, long bytes, int count) {
+        System.out.printf("%-20s %,d tasks, %,d bytes (%.1f bytes/task)%n",
+                name, manager.getAllTasks().size(), bytes, (double) bytes / count);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
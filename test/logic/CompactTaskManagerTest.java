@@ -0,0 +1,320 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import manager.*;
+import manager.store.ColumnarTaskStore;
+import manager.store.OffHeapTaskStore;
+import tasks.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+class CompactTaskManagerTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private CompactTaskManager taskManager;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new CompactTaskManager(new InMemoryHistoryManager());
+    }
+
+    @Test
+    void shouldBehaveLikeInMemoryManager() {
+
+        assertBehavesLikeInMemoryManager();
+    }
+
+    @Test
+    void overlappingUpdateShouldKeepTheTaskWithoutPrinting() {
+        Task first = taskManager.createTask(new Task(0, "First", Duration.ofMinutes(30), BASE));
+        Task second = taskManager.createTask(new Task(0, "Second", Duration.ofMinutes(30), BASE.plusHours(1)));
+        Task moved = new Task(second.getId(), "Moved", Duration.ofMinutes(30), BASE.plusMinutes(10));
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed));
+        try {
+            taskManager.updateTask(moved);
+        } finally {
+            System.setOut(out);
+        }
+
+        assertEquals(0, printed.size(), "Менеджер не должен писать в стандартный вывод");
+        assertEquals("Second", taskManager.getTask(second.getId()).getName());
+        assertEquals(BASE.plusHours(1), taskManager.getTask(second.getId()).getStartTime());
+        assertEquals(first.getId(), taskManager.getPrioritizedTasks().getFirst().getId());
+    }
+
+    @Test
+    void listsShouldKeepAscendingIdOrderAfterSlotsAreReused() {
+        for (int i = 0; i < 20; i++) {
+            taskManager.createTask(new Task(0, "Task " + i));
+        }
+        for (int id = 1; id <= 10; id++) {
+            taskManager.deleteTaskById(id);
+        }
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task(0, "Later " + i));
+        }
+
+        List<Integer> ids = taskManager.getAllTasks().stream().map(Task::getId).toList();
+        assertEquals(ids.stream().sorted().toList(), ids, "Освобождённые слоты не должны менять порядок списка");
+        assertEquals(15, ids.size());
+    }
+
+    @Test
+    void offHeapStoreShouldBehaveLikeInMemoryManager() {
+        taskManager = new CompactTaskManager(new InMemoryHistoryManager(), new OffHeapTaskStore());
+
+        assertBehavesLikeInMemoryManager();
+    }
+
+    private void assertBehavesLikeInMemoryManager() {
+        InMemoryTaskManager reference = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Random random = new Random(5);
+        for (int step = 0; step < 3_000; step++) {
+            int operation = random.nextInt(12);
+            String epicName = "Epic " + step;
+            List<Epic> epics = reference.getAllEpics();
+            List<SubTask> subTasks = reference.getAllSubTasks();
+            List<Task> tasks = reference.getAllTasks();
+            switch (operation) {
+                case 0, 1, 2 -> {
+                    Task task = new Task(0, "Task " + step, randomDuration(random), randomStart(random));
+                    assertSame(() -> reference.createTask(copy(task)), () -> taskManager.createTask(copy(task)));
+                }
+                case 3 -> assertSame(() -> reference.createEpic(new Epic(0, epicName)),
+                        () -> taskManager.createEpic(new Epic(0, epicName)));
+                case 4, 5 -> {
+                    if (!epics.isEmpty()) {
+                        int epicId = epics.get(random.nextInt(epics.size())).getId();
+                        SubTask subTask = new SubTask(0, "Sub " + step, epicId, randomDuration(random), randomStart(random));
+                        assertSame(() -> reference.createSubTask(new SubTask(subTask)),
+                                () -> taskManager.createSubTask(new SubTask(subTask)));
+                    }
+                }
+                case 6 -> {
+                    if (!tasks.isEmpty()) {
+                        Task task = new Task(tasks.get(random.nextInt(tasks.size())));
+                        task.setStartTime(randomStart(random));
+                        task.setStatus(TaskStatus.values()[random.nextInt(3)]);
+                        assertSame(() -> reference.updateTask(copy(task)), () -> taskManager.updateTask(copy(task)));
+                    }
+                }
+                case 7 -> {
+                    if (!subTasks.isEmpty() && !epics.isEmpty()) {
+                        SubTask old = subTasks.get(random.nextInt(subTasks.size()));
+                        int epicId = epics.get(random.nextInt(epics.size())).getId();
+                        SubTask subTask = new SubTask(old.getId(), "Renamed", epicId, randomDuration(random), randomStart(random));
+                        subTask.setStatus(TaskStatus.values()[random.nextInt(3)]);
+                        assertSame(() -> reference.updateSubTask(new SubTask(subTask)),
+                                () -> taskManager.updateSubTask(new SubTask(subTask)));
+                    }
+                }
+                case 8 -> {
+                    if (!tasks.isEmpty()) {
+                        int id = tasks.get(random.nextInt(tasks.size())).getId();
+                        reference.deleteTaskById(id);
+                        taskManager.deleteTaskById(id);
+                    }
+                }
+                case 9 -> {
+                    if (!subTasks.isEmpty()) {
+                        int id = subTasks.get(random.nextInt(subTasks.size())).getId();
+                        reference.deleteSubTaskById(id);
+                        taskManager.deleteSubTaskById(id);
+                    }
+                }
+                case 10 -> {
+                    if (!epics.isEmpty() && random.nextInt(4) == 0) {
+                        int id = epics.get(random.nextInt(epics.size())).getId();
+                        reference.deleteEpicById(id);
+                        taskManager.deleteEpicById(id);
+                    }
+                }
+                default -> {
+                    if (random.nextInt(20) == 0) {
+                        reference.deleteAllSubTasks();
+                        taskManager.deleteAllSubTasks();
+                    }
+                }
+            }
+            if (step % 50 == 0) {
+                assertSameState(reference, taskManager);
+            }
+        }
+        assertSameState(reference, taskManager);
+    }
+
+    @Test
+    void pagesShouldSkipOtherTypes() {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        for (int i = 0; i < 10; i++) {
+            taskManager.createTask(new Task(0, "Task " + i));
+            taskManager.createSubTask(new SubTask(0, "Sub " + i, epic.getId(), null, null));
+        }
+
+        List<Task> first = taskManager.getTasksPage(0, 4);
+        List<Task> second = taskManager.getTasksPage(first.getLast().getId(), 100);
+
+        assertEquals(List.of(2, 4, 6, 8), first.stream().map(Task::getId).toList());
+        assertEquals(6, second.size());
+        assertEquals(10, taskManager.getEpicsPage(0, 5).getFirst().getSubTasks().size());
+        assertEquals(10, taskManager.getSubTasksPage(0, 50).size());
+    }
+
+    @Test
+    void pagesShouldSkipDeletedIds() {
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task task = taskManager.createTask(new Task(0, "Task " + i));
+            if (i % 3 == 0) {
+                kept.add(task.getId());
+            } else {
+                taskManager.deleteTaskById(task.getId());
+            }
+        }
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+
+        List<Integer> paged = new ArrayList<>();
+        List<Task> page = taskManager.getTasksPage(0, 7);
+        while (!page.isEmpty()) {
+            page.forEach(task -> paged.add(task.getId()));
+            page = taskManager.getTasksPage(page.getLast().getId(), 7);
+        }
+
+        assertEquals(kept, paged, "Страницы должны обходить только оставшиеся задачи по порядку ID");
+        assertEquals(List.of(epic.getId()), taskManager.getEpicsPage(0, 10).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void unchangedNamesShouldNotGrowTheArena() {
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        CompactTaskManager manager = new CompactTaskManager(new InMemoryHistoryManager(), store);
+        Epic epic = manager.createEpic(new Epic(0, "Epic"));
+        SubTask subTask = manager.createSubTask(new SubTask(0, "Sub", epic.getId(), null, null));
+        for (int i = 0; i < 1000; i++) {
+            subTask.setStatus(i % 2 == 0 ? TaskStatus.DONE : TaskStatus.IN_PROGRESS);
+            manager.updateSubTask(subTask);
+        }
+        assertEquals(0, store.deadNameBytes(), "Запись с тем же именем не должна копировать имя");
+
+        String longName = "x".repeat(4096);
+        for (int i = 0; i < 1000; i++) {
+            subTask.setName(longName + i);
+            manager.updateSubTask(subTask);
+        }
+        assertTrue(store.deadNameBytes() < 2 * 1024 * 1024, "Мёртвые байты имён должны освобождаться уплотнением");
+        assertEquals(longName + 999, manager.getSubTask(subTask.getId()).getName());
+        assertEquals("Epic", manager.getEpic(epic.getId()).getName());
+    }
+
+    @Test
+    void scansShouldFilterByStatusAndTime() {
+        for (int i = 0; i < 100; i++) {
+            Task task = taskManager.createTask(new Task(0, "Task " + i, Duration.ofMinutes(30), BASE.plusHours(i)));
+            if (i % 4 == 0) {
+                task.setStatus(TaskStatus.DONE);
+                taskManager.updateTask(task);
+            }
+        }
+
+        assertEquals(25, taskManager.countByStatus(TaskType.TASK, TaskStatus.DONE));
+        assertEquals(75, taskManager.findByStatus(TaskType.TASK, TaskStatus.NEW).size());
+        List<Task> range = taskManager.findInTimeRange(BASE.plusHours(10), BASE.plusHours(12));
+        assertEquals(List.of(11, 12, 13), range.stream().map(Task::getId).sorted().toList(),
+                "Должны находиться задачи, пересекающие интервал");
+    }
+
+    @Test
+    void reopeningStoreShouldRestoreIndexes() {
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        CompactTaskManager first = new CompactTaskManager(new InMemoryHistoryManager(), store);
+        Epic epic = first.createEpic(new Epic(0, "Epic"));
+        first.createSubTask(new SubTask(0, "Sub", epic.getId(), Duration.ofMinutes(30), BASE));
+        first.createTask(new Task(0, "Task", Duration.ofMinutes(30), BASE.plusHours(1)));
+
+        CompactTaskManager reopened = new CompactTaskManager(new InMemoryHistoryManager(), store);
+
+        assertEquals(1, reopened.getEpicSubtasks(epic.getId()).size());
+        assertEquals(2, reopened.getPrioritizedTasks().size());
+        assertThrows(IllegalArgumentException.class,
+                () -> reopened.createTask(new Task(0, "Overlap", Duration.ofMinutes(5), BASE.plusMinutes(10))));
+        assertEquals(4, reopened.createEpic(new Epic(0, "Next")).getId(), "Счётчик ID должен продолжаться");
+    }
+
+    @Test
+    void namesAndPreciseTimesShouldSurviveRoundTrip() {
+        LocalDateTime start = LocalDateTime.of(2024, 7, 12, 1, 14, 20, 826053001);
+        Task task = taskManager.createTask(new Task(0, "Купить хлеб, молоко", Duration.ofSeconds(90, 7), start));
+        taskManager.createTask(new Task(0, null));
+
+        Task loaded = taskManager.getTask(task.getId());
+
+        assertEquals("Купить хлеб, молоко", loaded.getName());
+        assertEquals(start, loaded.getStartTime());
+        assertEquals(Duration.ofSeconds(90, 7), loaded.getDuration());
+        assertNull(taskManager.getTask(task.getId() + 1).getName());
+        assertEquals(2, taskManager.getHistory().size());
+    }
+
+    private static void assertSameState(TaskManager expected, TaskManager actual) {
+        assertEquals(describe(expected.getAllTasks()), describe(actual.getAllTasks()));
+        assertEquals(describe(expected.getAllEpics()), describe(actual.getAllEpics()), "Эпики должны совпадать");
+        assertEquals(describe(expected.getAllSubTasks()), describe(actual.getAllSubTasks()));
+        assertEquals(expected.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                actual.getPrioritizedTasks().stream().map(Task::getId).toList(), "Порядок приоритетов должен совпадать");
+        for (Epic epic : expected.getAllEpics()) {
+            assertEquals(describe(expected.getEpicSubtasks(epic.getId())), describe(actual.getEpicSubtasks(epic.getId())));
+        }
+    }
+
+    private static List<String> describe(List<? extends Task> tasks) {
+        List<String> rows = new ArrayList<>();
+        tasks.stream().sorted(Comparator.comparingInt(Task::getId)).forEach(task -> rows.add(task.getType() + ","
+                + task.getId() + "," + task.getName() + "," + task.getStatus() + "," + task.getStartTime() + ","
+                + task.getEndTime() + "," + task.getDuration()
+                + (task instanceof SubTask subTask ? "," + subTask.getEpicId() : "")));
+        return rows;
+    }
+
+    private static void assertSame(Runnable expected, Runnable actual) {
+        RuntimeException expectedError = capture(expected);
+        RuntimeException actualError = capture(actual);
+        assertEquals(expectedError == null ? null : expectedError.getMessage(),
+                actualError == null ? null : actualError.getMessage(), "Исключения должны совпадать");
+    }
+
+    private static RuntimeException capture(Runnable action) {
+        try {
+            action.run();
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    private static Task copy(Task task) {
+
+        return new Task(task);
+    }
+
+    private static Duration randomDuration(Random random) {
+
+        return random.nextInt(10) == 0 ? null : Duration.ofMinutes(1 + random.nextInt(120));
+    }
+
+    private static LocalDateTime randomStart(Random random) {
+
+        return random.nextInt(10) == 0 ? null : BASE.plusMinutes(random.nextInt(200_000));
+    }
+}
@@ -0,0 +1,149 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import manager.*;
+import tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ConcurrentTaskManagerTest {
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 500;
+
+    private ConcurrentTaskManager taskManager;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new ConcurrentTaskManager(new InMemoryHistoryManager());
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @Test
+    void concurrentCreatesShouldGetUniqueIds() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    LocalDateTime start = base.plusHours((long) thread * TASKS_PER_THREAD + i);
+                    ids.add(taskManager.createTask(new Task(0, "Task", Duration.ofMinutes(30), start)).getId());
+                }
+                return ids;
+            }));
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Future<List<Integer>> future : futures) {
+            ids.addAll(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * TASKS_PER_THREAD, ids.size(), "Все ID должны быть уникальными");
+        assertEquals(THREADS * TASKS_PER_THREAD, taskManager.getAllTasks().size());
+        assertEquals(THREADS * TASKS_PER_THREAD, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void onlyOneOfConflictingCreatesShouldSucceed() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ready.await();
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        taskManager.createTask(new Task(0, "Slot", Duration.ofMinutes(30), start.plusMinutes(i % 5)));
+                        created.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1, created.get(), "Пересекающиеся задачи не должны создаваться параллельно");
+        assertEquals(THREADS * 50 - 1, rejected.get());
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void readsShouldNotFailDuringConcurrentWrites() throws Exception {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        AtomicInteger failures = new AtomicInteger();
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 2000; i++) {
+                SubTask subTask = taskManager.createSubTask(
+                        new SubTask(0, "SubTask", epic.getId(), Duration.ofMinutes(10), base.plusHours(i)));
+                if (i % 3 == 0) {
+                    taskManager.deleteSubTaskById(subTask.getId());
+                }
+            }
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 1; t < THREADS; t++) {
+            readers.add(executor.submit(() -> {
+                while (!writer.isDone()) {
+                    try {
+                        for (SubTask subTask : taskManager.getAllSubTasks()) {
+                            taskManager.getSubTask(subTask.getId());
+                        }
+                        for (Epic current : taskManager.getAllEpics()) {
+                            for (SubTask subTask : current.getSubTasks()) {
+                                subTask.getEndTime();
+                            }
+                        }
+                        taskManager.getPrioritizedTasks();
+                        taskManager.getHistory();
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        writer.get(30, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(0, failures.get(), "Чтение не должно падать во время параллельной записи");
+        assertEquals(taskManager.getAllSubTasks().size(), taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void publishedEpicShouldNotChangeAfterSubTaskMutation() {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        Epic before = taskManager.getEpic(epic.getId());
+        SubTask subTask = taskManager.createSubTask(new SubTask(0, "SubTask", epic.getId(),
+                Duration.ofMinutes(10), LocalDateTime.of(2024, 1, 1, 0, 0)));
+        subTask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(subTask);
+
+        assertTrue(before.getSubTasks().isEmpty(), "Опубликованный эпик не должен меняться на месте");
+        assertEquals(TaskStatus.NEW, before.getStatus());
+        Epic after = taskManager.getEpic(epic.getId());
+        assertEquals(1, after.getSubTasks().size());
+        assertEquals(TaskStatus.DONE, after.getStatus(), "Новое состояние должно быть видно при повторном чтении");
+    }
+}
@@ -0,0 +1,81 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import manager.storage.CsvSnapshotReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+class CsvSnapshotReaderTest {
+    private Path path;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        path = Files.createTempFile("tasks", ".csv");
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.shutdownNow();
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    void shouldKeepFileOrderAcrossChunks() throws IOException {
+        StringBuilder content = new StringBuilder("header\n");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String line = "строка " + i;
+            expected.add(line);
+            content.append(line).append('\n');
+        }
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+
+        List<String> lines = new ArrayList<>();
+        new CsvSnapshotReader(pool, 64).read(path, Function.identity(), lines::add);
+
+        assertEquals(expected, lines, "Строки должны приходить в порядке файла");
+    }
+
+    @Test
+    void shouldHandleLongLinesBlankLinesAndMissingTrailingBreak() throws IOException {
+        String longLine = "x".repeat(1_000);
+        Files.writeString(path, "header\r\n" + longLine + "\r\n\n  \nlast", StandardCharsets.UTF_8);
+
+        List<String> lines = new ArrayList<>();
+        new CsvSnapshotReader(pool, 16).read(path, Function.identity(), lines::add);
+
+        assertEquals(List.of(longLine, "last"), lines);
+    }
+
+    @Test
+    void shouldSkipOnlyHeaderInEmptySnapshot() throws IOException {
+        Files.writeString(path, "id,type,name,status,epicId,startTime,duration\n");
+
+        List<String> lines = new ArrayList<>();
+        new CsvSnapshotReader(pool, 8).read(path, Function.identity(), lines::add);
+
+        assertTrue(lines.isEmpty());
+    }
+
+    @Test
+    void parserErrorShouldPropagate() throws IOException {
+        Files.writeString(path, "header\n1\nnot a number\n");
+
+        assertThrows(NumberFormatException.class,
+                () -> new CsvSnapshotReader(pool, 8).read(path, Integer::parseInt, value -> { }));
+    }
+}
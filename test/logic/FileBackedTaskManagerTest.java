@@ -1,6 +1,12 @@
 package logic;
 
 import manager.*;
+import manager.storage.BinarySnapshot;
+import manager.storage.Durability;
+import manager.storage.JournalRecords;
+import manager.storage.SnapshotFormat;
+import manager.storage.StorageConfig;
+import manager.store.OffHeapTaskStore;
 import tasks.*;
 
 import org.junit.jupiter.api.*;
@@ -10,6 +16,13 @@ import java.io.*;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 public class FileBackedTaskManagerTest {
@@ -25,6 +38,10 @@ public class FileBackedTaskManagerTest {
 
     @AfterEach
     void tearDown() {
+        taskManager.close();
+        taskManager.getJournalFile().delete();
+        taskManager.getHistoryFile().delete();
+        OffHeapTaskStore.namesPath(file.toPath()).toFile().delete();
         if (!file.delete()) {
             System.out.println("Не удалось удалить файл: " + file.getPath());
         }
@@ -108,5 +125,398 @@ public class FileBackedTaskManagerTest {
         assertEquals(Duration.ofMinutes(60), task.getDuration());
     }
 
+    @Test
+    void journalModeShouldAppendRecordsWithoutRewritingSnapshot() throws IOException {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        taskManager.createTask(new Task(0, "Task 1", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+        taskManager.createTask(new Task(0, "Task 2", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 12, 0)));
+
+        assertEquals(0, file.length(), "Снимок не должен перезаписываться в режиме журнала");
+        List<String> records = journalOperations();
+        assertEquals(2, records.size(), "На каждую операцию должна приходиться одна запись журнала");
+        assertEquals("PUT TASK", records.get(0));
+    }
+
+    @Test
+    void journalShouldKeepNamesWithSeparators() {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        Task task = taskManager.createTask(new Task(0, "Купить хлеб, молоко\nи сыр"));
+        Epic epic = taskManager.createEpic(new Epic(0, "Эпик,\r\n,"));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+
+        assertEquals(task.getName(), loaded.getTask(task.getId()).getName(), "Имя с запятой и переводом строки должно сохраняться");
+        assertEquals(epic.getName(), loaded.getEpic(epic.getId()).getName());
+        loaded.close();
+    }
+
+    @Test
+    void tornLastJournalRecordShouldBeDropped() throws IOException {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        taskManager.createTask(new Task(0, "Task 1"));
+        taskManager.createTask(new Task(0, "Task 2"));
+        taskManager.close();
+        byte[] journal = Files.readAllBytes(taskManager.getJournalFile().toPath());
+        Files.write(taskManager.getJournalFile().toPath(), Arrays.copyOf(journal, journal.length - 3));
+
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        assertEquals(List.of("Task 1"), taskManager.getAllTasks().stream().map(Task::getName).toList(),
+                "Оборванная последняя запись должна отбрасываться");
+        taskManager.createTask(new Task(0, "Task 3"));
+
+        assertEquals(List.of("PUT TASK", "PUT TASK"), journalOperations(),
+                "Новые записи должны дописываться после последней целой записи");
+    }
+
+    @Test
+    void damagedJournalRecordBeforeTheLastOneShouldFailLoad() throws IOException {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        taskManager.createTask(new Task(0, "Task 1"));
+        taskManager.createTask(new Task(0, "Task 2"));
+        taskManager.close();
+        byte[] journal = Files.readAllBytes(taskManager.getJournalFile().toPath());
+        journal[12] ^= 0x7F;
+        Files.write(taskManager.getJournalFile().toPath(), journal);
+
+        assertThrows(UncheckedIOException.class, () -> FileBackedTaskManager.loadFromFile(file, StorageConfig.journal()),
+                "Повреждение в середине журнала не должно пропускаться молча");
+        assertArrayEquals(journal, Files.readAllBytes(taskManager.getJournalFile().toPath()),
+                "Повреждённый журнал не должен изменяться");
+    }
+
+    private List<String> journalOperations() throws IOException {
+        List<String> operations = new ArrayList<>();
+        JournalRecords.replay(taskManager.getJournalFile().toPath(), new JournalRecords.Sink() {
+            @Override
+            public void put(Task task) {
+                operations.add("PUT " + task.getType());
+            }
+
+            @Override
+            public void delete(TaskType type, int id) {
+                operations.add("DEL " + type);
+            }
+
+            @Override
+            public void clear(TaskType type) {
+                operations.add("CLR " + type);
+            }
+        });
+        return operations;
+    }
 
-}
\ No newline at end of file
+    @Test
+    void journalShouldBeReplayedOverSnapshotOnLoad() {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        Task kept = taskManager.createTask(new Task(0, "Kept", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+        Task removed = taskManager.createTask(new Task(0, "Removed"));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        taskManager.compact();
+
+        Task renamed = new Task(kept);
+        renamed.setName("Renamed");
+        taskManager.updateTask(renamed);
+        taskManager.deleteTaskById(removed.getId());
+        SubTask subTask = taskManager.createSubTask(
+                new SubTask(0, "SubTask", epic.getId(), Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 2, 10, 0)));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+
+        assertEquals(1, loaded.getAllTasks().size(), "Удалённая задача не должна восстанавливаться");
+        assertEquals("Renamed", loaded.getAllTasks().getFirst().getName(), "Обновление должно восстанавливаться из журнала");
+        assertEquals(1, loaded.getAllEpics().size());
+        assertEquals(1, loaded.getAllSubTasks().size());
+        assertEquals(subTask.getStartTime(), loaded.getAllSubTasks().getFirst().getStartTime());
+    }
+
+    @Test
+    void journalShouldBeCompactedAfterThreshold() {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal().withCompactionThreshold(3));
+        taskManager.createTask(new Task(0, "Task 1"));
+        taskManager.createTask(new Task(0, "Task 2"));
+        assertTrue(taskManager.getJournalFile().exists());
+
+        taskManager.createTask(new Task(0, "Task 3"));
+
+        assertFalse(taskManager.getJournalFile().exists(), "Журнал должен быть свёрнут в снимок");
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "Снимок после компактации должен содержать все задачи");
+    }
+
+    @Test
+    void failedCompactionShouldKeepJournal() throws IOException {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        taskManager.createTask(new Task(0, "Task 1"));
+        taskManager.createTask(new Task(0, "Task 2"));
+        File blocker = new File(file.getPath() + ".tmp");
+        assertTrue(blocker.mkdir(), "Каталог на месте временного файла должен помешать записи снимка");
+        try {
+            assertThrows(UncheckedIOException.class, taskManager::compact);
+        } finally {
+            Files.delete(blocker.toPath());
+        }
+
+        assertTrue(taskManager.getJournalFile().exists(), "Журнал не должен удаляться без нового снимка");
+        assertEquals(2, FileBackedTaskManager.loadFromFile(file, StorageConfig.journal()).getAllTasks().size(),
+                "Записи журнала должны пережить неудачную компактацию");
+
+        taskManager.compact();
+        assertFalse(taskManager.getJournalFile().exists());
+    }
+
+    @Test
+    void failedJournalWriteShouldRejectFurtherMutations() {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        assertTrue(taskManager.getJournalFile().mkdir(), "Каталог на месте журнала должен помешать записи");
+
+        assertThrows(IllegalStateException.class, () -> taskManager.createTask(new Task(0, "Lost")),
+                "Вызывающий должен узнать, что изменение не сохранено");
+        assertThrows(IllegalStateException.class, () -> taskManager.createTask(new Task(0, "Rejected")),
+                "После ошибки записи изменения должны отклоняться");
+        assertThrows(IllegalStateException.class, taskManager::compact,
+                "Несохранённое изменение не должно попадать в снимок");
+        assertEquals(List.of("Lost"), taskManager.getAllTasks().stream().map(Task::getName).toList());
+
+        taskManager.close();
+        assertTrue(taskManager.getJournalFile().delete());
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal());
+        assertTrue(taskManager.getAllTasks().isEmpty(), "После перезапуска остаётся последнее сохранённое состояние");
+    }
+
+    @Test
+    void readsShouldNotRewriteSnapshot() {
+        Task task = taskManager.createTask(new Task(0, "Task"));
+        assertTrue(file.delete());
+
+        taskManager.getTask(task.getId());
+
+        assertFalse(file.exists(), "Чтение задачи не должно перезаписывать файл");
+    }
+
+    @Test
+    void historyShouldSurviveRestart() {
+        Task first = taskManager.createTask(new Task(0, "First"));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        Task second = taskManager.createTask(new Task(0, "Second"));
+        taskManager.getTask(second.getId());
+        taskManager.getEpic(epic.getId());
+        taskManager.getTask(first.getId());
+        taskManager.getTask(second.getId());
+        taskManager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(List.of(epic.getId(), first.getId(), second.getId()),
+                loaded.getHistory().stream().map(Task::getId).toList(),
+                "История просмотров должна восстанавливаться после перезапуска");
+        loaded.close();
+    }
+
+    @Test
+    void concurrentViewsShouldBeLoggedInHistoryOrder() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(taskManager.createTask(new Task(0, "Task " + i)).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    taskManager.getTask(ids.get((seed * 7 + i * 13) % ids.size()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        List<Integer> history = taskManager.getHistory().stream().map(Task::getId).toList();
+        taskManager.close();
+
+        try (FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file)) {
+            assertEquals(history, loaded.getHistory().stream().map(Task::getId).toList(),
+                    "Порядок просмотров в журнале должен совпадать с историей в памяти");
+        }
+        assertTrue(Files.readAllLines(taskManager.getHistoryFile().toPath()).size() < 4000,
+                "Разросшийся журнал истории должен перезаписываться в фоне");
+    }
+
+    @Test
+    void concurrentJournalWritesShouldAllBeDurable() throws Exception {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.journal().withDurability(Durability.SYNC));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    taskManager.createTask(new Task(0, "Task"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(400, journalOperations().size(),
+                "Все подтверждённые записи должны быть в журнале");
+        assertEquals(400, FileBackedTaskManager.loadFromFile(file, StorageConfig.journal()).getAllTasks().size());
+    }
+
+    @Test
+    void periodicDurabilityShouldCompleteFutureAfterSync() throws Exception {
+        taskManager = FileBackedTaskManager.loadFromFile(file,
+                StorageConfig.journal().withDurability(Durability.PERIODIC).withSyncInterval(20));
+        taskManager.createTask(new Task(0, "Task"));
+
+        taskManager.whenDurable().get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, journalOperations().size());
+    }
+
+    @Test
+    void heldEpicShouldFollowSubtaskChangesLikeInMemoryManager() {
+        Epic epic = taskManager.createEpic(new Epic(0, "Эпик"));
+        SubTask subTask = taskManager.createSubTask(new SubTask(0, "Подзадача", epic.getId(),
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 10, 0)));
+
+        assertSame(epic, taskManager.getEpic(epic.getId()), "Эпик не должен копироваться при изменении");
+        assertEquals(List.of(subTask.getId()), epic.getSubTasks().stream().map(Task::getId).toList(),
+                "Полученный ранее эпик должен видеть новые подзадачи");
+    }
+
+    @Test
+    void snapshotModeShouldFsyncOnlyWhenAskedTo() {
+        assertEquals(Durability.OS_BUFFERED, StorageConfig.snapshot().getDurability(),
+                "Режим снимков по умолчанию не должен вызывать fsync на каждое изменение");
+        taskManager.close();
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.snapshot().withDurability(Durability.SYNC));
+        taskManager.createTask(new Task(0, "Задача"));
+
+        try (FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file)) {
+            assertEquals(1, loaded.getAllTasks().size());
+        }
+    }
+
+    @Test
+    void csvSnapshotShouldMigrateToBinaryFormat() throws IOException {
+        taskManager.createTask(new Task(0, "Задача"));
+        taskManager.createEpic(new Epic(0, "Epic"));
+        assertFalse(BinarySnapshot.isBinary(file.toPath()));
+
+        FileBackedTaskManager binary = FileBackedTaskManager.loadFromFile(file,
+                StorageConfig.snapshot().withSnapshotFormat(SnapshotFormat.BINARY));
+        binary.save();
+        binary.close();
+
+        assertTrue(BinarySnapshot.isBinary(file.toPath()), "Снимок должен перейти в бинарный формат");
+        try (FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file)) {
+            assertEquals(1, loaded.getAllTasks().size());
+            assertEquals(1, loaded.getAllEpics().size());
+        }
+    }
+
+    @Test
+    void derivedStateShouldBeRebuiltAfterRestart() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Task task = taskManager.createTask(new Task(0, "Task", Duration.ofMinutes(30), base));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        SubTask first = taskManager.createSubTask(new SubTask(0, "First", epic.getId(), Duration.ofMinutes(15), base.plusHours(2)));
+        SubTask second = new SubTask(0, "Second", epic.getId(), Duration.ofMinutes(45), base.plusHours(1));
+        second = taskManager.createSubTask(second);
+        second.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(second);
+        List<Integer> prioritized = taskManager.getPrioritizedTasks().stream().map(Task::getId).toList();
+        taskManager.close();
+
+        taskManager = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(prioritized, taskManager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Порядок приоритетных задач должен восстанавливаться после перезапуска");
+        Task created = taskManager.createTask(new Task(0, "New"));
+        assertTrue(created.getId() > first.getId(), "Новые ID не должны пересекаться с загруженными");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.createTask(new Task(0, "Overlap", Duration.ofMinutes(10), base.plusMinutes(10))),
+                "Проверка пересечений должна работать после перезапуска");
+        Epic loadedEpic = taskManager.getEpic(epic.getId());
+        assertEquals(2, loadedEpic.getSubTasks().size(), "Подзадачи должны быть привязаны к эпику");
+        assertEquals(TaskStatus.IN_PROGRESS, loadedEpic.getStatus());
+        assertEquals(base.plusHours(1), loadedEpic.getStartTime());
+        assertEquals(base.plusHours(2).plusMinutes(15), loadedEpic.getEndTime());
+        assertNotNull(taskManager.getTask(task.getId()));
+    }
+
+    @Test
+    void mappedModeShouldRewriteOnlyTouchedSlots() throws IOException {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.mapped());
+        LocalDateTime base = LocalDateTime.of(2024, 5, 1, 9, 0);
+        Task removed = taskManager.createTask(new Task(0, "Removed"));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        SubTask subTask = taskManager.createSubTask(new SubTask(0, "Sub", epic.getId(), Duration.ofMinutes(30), base));
+        subTask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(subTask);
+        taskManager.deleteTaskById(removed.getId());
+        Task reused = taskManager.createTask(new Task(0, "Reused", Duration.ofMinutes(10), base.plusHours(1)));
+        taskManager.close();
+
+        assertTrue(OffHeapTaskStore.isStore(file.toPath()), "Файл должен содержать отображаемое хранилище");
+        try (OffHeapTaskStore store = OffHeapTaskStore.mapped(file.toPath())) {
+            assertEquals(3, store.slotLimit(), "Освобождённый слот должен переиспользоваться");
+            assertEquals(5, store.nextId(), "Счётчик ID должен храниться в заголовке");
+        }
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.mapped());
+        assertEquals(List.of(reused.getId()), taskManager.getAllTasks().stream().map(Task::getId).toList());
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(base.plusMinutes(30), taskManager.getEpic(epic.getId()).getEndTime());
+        assertEquals(5, taskManager.createTask(new Task(0, "Next")).getId(), "Удалённые ID не должны повторяться");
+        taskManager.deleteEpicById(epic.getId());
+        taskManager.close();
+
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.mapped());
+        assertTrue(taskManager.getAllSubTasks().isEmpty(), "Подзадачи удалённого эпика не должны восстанавливаться");
+        assertEquals(2, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void mappedModeShouldRejectOversizedNameBeforeChangingAnything() {
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.mapped());
+        Task task = taskManager.createTask(new Task(0, "Task"));
+        String oversized = "ж".repeat(1 << 20);
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createTask(new Task(0, oversized)));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createEpic(new Epic(0, oversized)));
+        Task renamed = new Task(task);
+        renamed.setName(oversized);
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(renamed));
+
+        assertEquals(List.of("Task"), taskManager.getAllTasks().stream().map(Task::getName).toList(),
+                "Отклонённые изменения не должны попадать в память");
+        assertTrue(taskManager.getAllEpics().isEmpty());
+        taskManager.createTask(new Task(0, "Next"));
+        taskManager.close();
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.mapped());
+        assertEquals(List.of("Task", "Next"), taskManager.getAllTasks().stream().map(Task::getName).toList());
+    }
+
+    @Test
+    void snapshotShouldMigrateToMappedStoreAndBack() throws IOException {
+        taskManager.createTask(new Task(0, "Задача", Duration.ofMinutes(20), LocalDateTime.of(2024, 2, 1, 8, 0)));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        taskManager.createSubTask(new SubTask(0, "Sub", epic.getId(), Duration.ofMinutes(5), LocalDateTime.of(2024, 2, 1, 9, 0)));
+        taskManager.close();
+
+        taskManager = FileBackedTaskManager.loadFromFile(file, StorageConfig.mapped());
+        assertTrue(OffHeapTaskStore.isStore(file.toPath()), "Снимок должен быть перенесён в хранилище");
+        assertEquals(1, taskManager.getEpicSubtasks(epic.getId()).size());
+        taskManager.createTask(new Task(0, "Mapped"));
+        taskManager.close();
+
+        taskManager = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(2, taskManager.getAllTasks().size(), "Хранилище должно читаться в режиме снимка");
+        taskManager.createTask(new Task(0, "Snapshot"));
+        assertFalse(OffHeapTaskStore.isStore(file.toPath()));
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file).getAllTasks().size());
+    }
+}
@@ -6,11 +6,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import manager.*;
+import manager.index.TaskIntervalIndex;
 import tasks.*;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 class InMemoryTaskManagerTest {
     InMemoryTaskManager taskManager;
@@ -43,6 +47,23 @@ class InMemoryTaskManagerTest {
         assertEquals(1, tasks.size(), "Метод getAllTasks должен возвращать список с одной задачей.");
     }
 
+    @Test
+    void getAllTasksShouldKeepAscendingIdOrder() {
+        for (int i = 0; i < 100; i++) {
+            taskManager.createTask(new Task(0, "Task " + i));
+        }
+        for (int id = 1; id <= 100; id += 3) {
+            taskManager.deleteTaskById(id);
+        }
+        for (int i = 0; i < 10; i++) {
+            taskManager.createTask(new Task(0, "Later " + i));
+        }
+
+        List<Integer> ids = taskManager.getAllTasks().stream().map(Task::getId).toList();
+        assertEquals(ids.stream().sorted().toList(), ids, "Список задач должен идти по возрастанию ID");
+        assertEquals(76, ids.size());
+    }
+
     @Test
     void getAllEpicsShouldReturnAllEpics() {
         Epic epic = new Epic(0, "Test Epic");
@@ -167,6 +188,17 @@ class InMemoryTaskManagerTest {
         assertTrue(taskManager.getHistory().contains(epic), "Ожидается, что эпик будет добавлен в историю");
     }
 
+    @Test
+    void hasEpicShouldNotAddToHistory() {
+        Epic epic = taskManager.createEpic(new Epic(0, "Эпик"));
+        long historyVersion = taskManager.getHistoryVersion();
+
+        assertTrue(taskManager.hasEpic(epic.getId()));
+        assertFalse(taskManager.hasEpic(epic.getId() + 1));
+        assertTrue(taskManager.getHistory().isEmpty(), "Проверка существования не должна считаться просмотром");
+        assertEquals(historyVersion, taskManager.getHistoryVersion());
+    }
+
 
     @Test
     void testGetSubTaskReturnsSubTaskIfExists() {
@@ -358,6 +390,102 @@ class InMemoryTaskManagerTest {
         assertTrue(prioritizedTasks.contains(task1) && prioritizedTasks.contains(task2), "Список приоритетных задач должен содержать добавленные задачи");
     }
 
+    @Test
+    void prioritizedTasksShouldBeAFreshMutableList() {
+        Task task = taskManager.createTask(new Task(0, "Task", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0)));
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        prioritizedTasks.clear();
+
+        assertEquals(List.of(task), taskManager.getPrioritizedTasks(), "Изменение результата не должно влиять на менеджер");
+        assertEquals(List.of(task), taskManager.getPrioritizedSnapshot().tasks());
+    }
+
+    @Test
+    void prioritizedSnapshotShouldBeReusedUntilMutation() {
+        taskManager.createTask(new Task(0, "Task", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0)));
+        PrioritizedSnapshot first = taskManager.getPrioritizedSnapshot();
+
+        assertSame(first, taskManager.getPrioritizedSnapshot(), "Снимок не должен пересоздаваться без изменений");
+        assertThrows(UnsupportedOperationException.class, () -> first.tasks().add(new Task(0, "Extra")));
+
+        taskManager.createTask(new Task(0, "Other"));
+        PrioritizedSnapshot second = taskManager.getPrioritizedSnapshot();
+
+        assertTrue(second.version() > first.version(), "Версия должна расти после изменения");
+        assertEquals(2, second.tasks().size());
+        assertEquals(1, first.tasks().size(), "Старый снимок не должен меняться");
+    }
+
+    @Test
+    void rangeQueryShouldMatchFilteredPrioritizedList() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Random random = new Random(11);
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = random.nextInt(10) == 0 ? null : base.plusMinutes(random.nextInt(5_000) * 10L);
+            try {
+                taskManager.createTask(new Task(0, "Task " + i, Duration.ofMinutes(5), start));
+            } catch (IllegalArgumentException ignored) {
+                // overlapping start, skipped
+            }
+        }
+        TaskManager reference = new CompactTaskManager(new InMemoryHistoryManager());
+        taskManager.getPrioritizedTasks().forEach(task -> reference.createTask(
+                new Task(0, task.getName(), task.getDuration(), task.getStartTime())));
+
+        for (int i = 0; i < 50; i++) {
+            LocalDateTime from = random.nextBoolean() ? null : base.plusMinutes(random.nextInt(50_000));
+            LocalDateTime to = random.nextBoolean() ? null : base.plusMinutes(20_000 + random.nextInt(40_000));
+            if (from != null && to != null && from.isAfter(to)) {
+                continue;
+            }
+            int limit = 1 + random.nextInt(100);
+            assertEquals(reference.getPrioritizedTasks(from, to, limit).stream().map(Task::getStartTime).toList(),
+                    taskManager.getPrioritizedTasks(from, to, limit).stream().map(Task::getStartTime).toList(),
+                    "Диапазон должен совпадать с отфильтрованным списком");
+        }
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getPrioritizedTasks(null, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.getPrioritizedTasks(base.plusDays(1), base, 10));
+    }
+
+    @Test
+    void rangeQueryShouldIncludeStartAndExcludeEnd() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Task first = taskManager.createTask(new Task(0, "First", Duration.ofMinutes(30), base));
+        Task second = taskManager.createTask(new Task(0, "Second", Duration.ofMinutes(30), base.plusHours(1)));
+        taskManager.createTask(new Task(0, "Undated"));
+
+        assertEquals(List.of(first), taskManager.getPrioritizedTasks(base, base.plusHours(1), 10));
+        assertEquals(List.of(first, second), taskManager.getPrioritizedTasks(base, null, 10),
+                "Задачи без времени начала не должны попадать в диапазон");
+        assertEquals(List.of(first), taskManager.getPrioritizedTasks(null, null, 1));
+    }
+
+    @Test
+    void pagesShouldWalkAllTasksInIdOrder() {
+        for (int i = 0; i < 25; i++) {
+            taskManager.createTask(new Task(0, "Task " + i));
+            taskManager.createEpic(new Epic(0, "Epic " + i));
+        }
+        taskManager.deleteTaskById(5);
+        List<Integer> expected = taskManager.getAllTasks().stream().map(Task::getId).sorted().toList();
+
+        List<Integer> walked = new ArrayList<>();
+        int after = 0;
+        List<Task> page;
+        do {
+            page = taskManager.getTasksPage(after, 7);
+            assertTrue(page.size() <= 7, "Страница не должна превышать лимит");
+            page.forEach(task -> walked.add(task.getId()));
+            after = page.isEmpty() ? after : page.getLast().getId();
+        } while (page.size() == 7);
+
+        assertEquals(expected, walked, "Обход страниц должен вернуть все задачи по возрастанию ID");
+        assertEquals(List.of(2, 4), taskManager.getEpicsPage(0, 2).stream().map(Task::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksPage(0, 0));
+    }
+
     @Test
     void shouldReturnFalseWhenNoOverlappingTasks() {
         Task task1 = new Task(1, "Test Task 1", Duration.ofHours(1), LocalDateTime.now());
@@ -389,7 +517,129 @@ class InMemoryTaskManagerTest {
         Task task2 = new Task(2, "Test Task 2", Duration.ofHours(1), LocalDateTime.now());
         assertTrue(taskManager.isTaskInvalid(task2), "Задача должна считаться пересекающейся, если заканчивается в момент начала другой задачи");
     }
-}
 
+    @Test
+    void findOverlappingTaskShouldReturnConflictingTask() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Task morning = taskManager.createTask(new Task(0, "Morning", Duration.ofHours(1), base));
+        taskManager.createTask(new Task(0, "Evening", Duration.ofHours(1), base.plusHours(8)));
+
+        Task candidate = new Task(0, "Candidate", Duration.ofMinutes(30), base.plusMinutes(45));
+
+        assertEquals(morning, taskManager.findOverlappingTask(candidate), "Должна возвращаться конфликтующая задача");
+        assertNull(taskManager.findOverlappingTask(new Task(0, "Free", Duration.ofHours(1), base.plusHours(3))),
+                "Для свободного интервала конфликт не должен находиться");
+    }
+
+    @Test
+    void findOverlappingTaskShouldMatchLinearScan() {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Task task = new Task(0, "Task " + i, Duration.ofMinutes(random.nextInt(60)),
+                    base.plusMinutes(random.nextInt(200_000)));
+            if (taskManager.findOverlappingTask(task) == null) {
+                created.add(taskManager.createTask(task));
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            taskManager.deleteTaskById(created.remove(random.nextInt(created.size())).getId());
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(200_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(120));
+            boolean expected = created.stream()
+                    .anyMatch(t -> taskManager.isOverlapping(start, end, t.getStartTime(), t.getEndTime()));
+            assertEquals(expected, taskManager.isTaskInvalid(new Task(0, "Probe", Duration.between(start, end), start)),
+                    "Индекс интервалов должен давать тот же результат, что и полный перебор");
+        }
+    }
 
+    @Test
+    void bulkBuiltIntervalIndexShouldMatchLinearScan() {
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Task> tasks = new ArrayList<>();
+        for (int id = 1; id <= 2_000; id++) {
+            Task task = new Task(id, "Task " + id, Duration.ofMinutes(1 + random.nextInt(30)),
+                    base.plusMinutes(random.nextInt(100_000)));
+            tasks.add(task);
+        }
+        tasks.add(new Task(2_001, "Без времени"));
+        tasks.sort(Comparator.comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Task::getId));
+
+        TaskIntervalIndex index = new TaskIntervalIndex();
+        index.build(tasks);
+
+        assertEquals(2_000, index.size(), "Задачи без времени не должны попадать в индекс");
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(100_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(20));
+            boolean expected = tasks.stream().anyMatch(task -> task.getStartTime() != null
+                    && !task.getStartTime().isAfter(end) && !task.getEndTime().isBefore(start));
+            assertEquals(expected, index.findOverlapping(start, end) != null,
+                    "Индекс, построенный пакетно, должен совпадать с линейным поиском");
+        }
+    }
+
+    @Test
+    void intervalIndexBuildShouldRejectUnsortedInput() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Task> tasks = List.of(
+                new Task(1, "Task 1", Duration.ofMinutes(10), base.plusHours(1)),
+                new Task(2, "Task 2", Duration.ofMinutes(10), base));
+
+        assertThrows(IllegalArgumentException.class, () -> new TaskIntervalIndex().build(tasks));
+    }
 
+    @Test
+    void epicSubtaskIndexShouldFollowUpdatesAndDeletes() {
+        Epic first = taskManager.createEpic(new Epic(0, "First"));
+        Epic second = taskManager.createEpic(new Epic(0, "Second"));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        SubTask moved = taskManager.createSubTask(new SubTask(0, "Moved", first.getId(), Duration.ofMinutes(10), start));
+        SubTask kept = taskManager.createSubTask(new SubTask(0, "Kept", first.getId(), Duration.ofMinutes(10), start.plusHours(1)));
+
+        taskManager.updateSubTask(new SubTask(moved.getId(), "Moved", second.getId(), Duration.ofMinutes(10), start));
+
+        assertEquals(List.of(kept.getId()), taskManager.getEpicSubtasks(first.getId()).stream().map(Task::getId).toList());
+        assertEquals(List.of(moved.getId()), taskManager.getEpicSubtasks(second.getId()).stream().map(Task::getId).toList(),
+                "Подзадача должна переходить к новому эпику при обновлении");
+        assertEquals(1, first.getSubTasks().size(), "Старый эпик не должен хранить перенесённую подзадачу");
+
+        taskManager.deleteSubTaskById(kept.getId());
+        assertTrue(taskManager.getEpicSubtasks(first.getId()).isEmpty());
+
+        taskManager.deleteEpicById(second.getId());
+        assertTrue(taskManager.getEpicSubtasks(second.getId()).isEmpty(), "Индекс должен очищаться при удалении эпика");
+
+        taskManager.createSubTask(new SubTask(0, "New", first.getId(), Duration.ofMinutes(10), start.plusHours(2)));
+        taskManager.deleteAllSubTasks();
+        assertTrue(taskManager.getEpicSubtasks(first.getId()).isEmpty(), "Индекс должен очищаться при удалении всех подзадач");
+    }
+
+    @Test
+    void versionsShouldChangeOnlyWithTheirData() {
+        long initial = taskManager.getVersion();
+        Task task = taskManager.createTask(new Task(0, "Task"));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        long afterCreate = taskManager.getVersion();
+        assertTrue(afterCreate > initial, "Создание задач должно менять версию");
+
+        taskManager.getAllTasks();
+        taskManager.getPrioritizedSnapshot();
+        long history = taskManager.getHistoryVersion();
+        taskManager.getTask(task.getId());
+        assertEquals(afterCreate, taskManager.getVersion(), "Чтение не должно менять версию данных");
+        assertTrue(taskManager.getHistoryVersion() > history, "Просмотр задачи должен менять версию истории");
+
+        taskManager.updateEpic(new Epic(epic.getId(), "Renamed"));
+        assertTrue(taskManager.getVersion() > afterCreate, "Изменение эпика должно менять версию");
+        long afterUpdate = taskManager.getVersion();
+        taskManager.deleteAllEpics();
+        assertTrue(taskManager.getVersion() > afterUpdate, "Удаление эпиков должно менять версию");
+    }
+}
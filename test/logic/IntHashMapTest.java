@@ -0,0 +1,90 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import manager.util.IntHashMap;
+import manager.util.OrderedIntMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class IntHashMapTest {
+
+    @Test
+    void shouldMatchHashMapUnderRandomOperations() {
+        Random random = new Random(3);
+        IntHashMap<String> map = new IntHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            int key = random.nextInt(5_000) - 100;
+            switch (random.nextInt(4)) {
+                case 0, 1 -> assertEquals(expected.put(key, "v" + step), map.put(key, "v" + step));
+                case 2 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -100; key < 4_900; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key), "Наборы ключей должны совпадать");
+        }
+        List<Integer> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+        assertEquals(expected.size(), keys.size());
+        assertTrue(expected.keySet().containsAll(keys));
+    }
+
+    @Test
+    void valuesViewShouldSupportRemoval() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put(i, i);
+        }
+
+        map.values().removeIf(value -> value % 2 == 0);
+        Iterator<Integer> iterator = map.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 3 == 0) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(333, map.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i % 2 != 0 && i % 3 != 0, map.containsKey(i));
+        }
+        map.values().clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    @Test
+    void shouldRejectNullValues() {
+
+        assertThrows(IllegalArgumentException.class, () -> new IntHashMap<String>().put(1, null));
+    }
+
+    @Test
+    void orderedMapShouldWalkKeysInAscendingOrder() {
+        OrderedIntMap<String> map = new OrderedIntMap<>(new IntHashMap<>());
+        for (int key : new int[]{70, 3, 512, 64, 0}) {
+            map.put(key, "v" + key);
+        }
+        map.remove(64);
+        map.values().removeIf(value -> value.equals("v70"));
+
+        List<Integer> keys = new ArrayList<>();
+        for (int key = map.nextKey(-1); key >= 0; key = map.nextKey(key)) {
+            keys.add(key);
+        }
+
+        assertEquals(List.of(0, 3, 512), keys, "Удалённые через values() ключи должны пропускаться");
+        assertEquals(-1, map.nextKey(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, "negative"));
+    }
+}
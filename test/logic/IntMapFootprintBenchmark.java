@@ -0,0 +1,50 @@
+package logic;
+
+import manager.util.IntHashMap;
+import manager.util.IntMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the retained heap of {@code HashMap<Integer, Object>} and {@link IntHashMap} holding the same entries.
+ * Values are shared, so only the map structure and boxed keys are measured.
+ * <p>
+ * Usage: {@code java logic.IntMapFootprintBenchmark [entries]}
+ */
+public class IntMapFootprintBenchmark {
+    private static final Object VALUE = new Object();
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long before = usedMemory();
+        Map<Integer, Object> boxed = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+            boxed.put(i * 7, VALUE);
+        }
+        long boxedBytes = usedMemory() - before;
+        int boxedSize = boxed.size();
+        boxed = null;
+
+        before = usedMemory();
+        IntMap<Object> primitive = new IntHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            primitive.put(i * 7, VALUE);
+        }
+        long primitiveBytes = usedMemory() - before;
+
+        System.out.printf("HashMap<Integer, Object>: %,d entries, %,d bytes (%.1f bytes/entry)%n",
+                boxedSize, boxedBytes, (double) boxedBytes / entries);
+        System.out.printf("IntHashMap<Object>:       %,d entries, %,d bytes (%.1f bytes/entry)%n",
+                primitive.size(), primitiveBytes, (double) primitiveBytes / entries);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
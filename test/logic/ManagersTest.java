@@ -6,6 +6,8 @@ import manager.TaskManager;
 import manager.HistoryManager;
 import manager.Managers;
 import manager.InMemoryTaskManager;
+import manager.ConcurrentTaskManager;
+import manager.CompactTaskManager;
 import manager.InMemoryHistoryManager;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,6 +22,22 @@ public class ManagersTest {
                 "Should return instance of InMemoryTaskManager");
     }
 
+    @Test
+    public void testGetDefaultConcurrentManager_isNotNull_andCorrectType() {
+        TaskManager manager = Managers.getDefaultConcurrentManager();
+        assertNotNull(manager, "TaskManager should not be null");
+        assertInstanceOf(ConcurrentTaskManager.class, manager,
+                "Should return instance of ConcurrentTaskManager");
+    }
+
+    @Test
+    public void testGetDefaultOffHeapManager_isNotNull_andCorrectType() {
+        TaskManager manager = Managers.getDefaultOffHeapManager();
+        assertNotNull(manager, "TaskManager should not be null");
+        assertInstanceOf(CompactTaskManager.class, manager,
+                "Should return instance of CompactTaskManager");
+    }
+
     @Test
     public void testGetDefaultHistory_isNotNull_andCorrectType() {
         HistoryManager historyManager = Managers.getDefaultHistory();
@@ -0,0 +1,145 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import manager.CompactTaskManager;
+import manager.InMemoryHistoryManager;
+import manager.store.OffHeapTaskStore;
+import tasks.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+class OffHeapTaskStoreTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private Path path;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        path = Files.createTempFile("tasks", ".store");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(OffHeapTaskStore.namesPath(path));
+    }
+
+    @Test
+    void mappedStoreShouldSurviveReopening() throws IOException {
+        int epicId;
+        try (CompactTaskManager first = new CompactTaskManager(new InMemoryHistoryManager(),
+                OffHeapTaskStore.mapped(path))) {
+            Epic epic = first.createEpic(new Epic(0, "Переезд"));
+            epicId = epic.getId();
+            SubTask subTask = first.createSubTask(new SubTask(0, "Упаковать", epicId, Duration.ofHours(2), BASE));
+            subTask.setStatus(TaskStatus.DONE);
+            first.updateSubTask(subTask);
+            Task task = first.createTask(new Task(0, "Уволиться", Duration.ofMinutes(30), BASE.plusHours(3)));
+            first.deleteTaskById(task.getId());
+        }
+
+        try (CompactTaskManager reopened = new CompactTaskManager(new InMemoryHistoryManager(),
+                OffHeapTaskStore.mapped(path))) {
+            assertEquals(1, reopened.getAllEpics().size());
+            assertTrue(reopened.getAllTasks().isEmpty(), "Удалённая задача не должна восстанавливаться");
+            Epic epic = reopened.getEpic(epicId);
+            assertEquals("Переезд", epic.getName());
+            assertEquals(TaskStatus.DONE, epic.getStatus());
+            assertEquals(BASE.plusHours(2), epic.getEndTime());
+            assertEquals("Упаковать", reopened.getEpicSubtasks(epicId).getFirst().getName());
+            assertEquals(4, reopened.createTask(new Task(0, "Новая")).getId(),
+                    "Счётчик ID должен храниться в заголовке и не повторять удалённые ID");
+        }
+    }
+
+    @Test
+    void releasedSlotsShouldBeReused() {
+        try (OffHeapTaskStore store = new OffHeapTaskStore()) {
+            int first = store.allocate();
+            int second = store.allocate();
+            store.write(first, 1, TaskType.TASK, TaskStatus.NEW, 0, "a");
+            store.write(second, 2, TaskType.TASK, TaskStatus.NEW, 0, null);
+            store.release(first);
+
+            assertEquals(first, store.allocate(), "Освобождённый слот должен переиспользоваться");
+            assertEquals(2, store.size());
+            assertEquals(2, store.slotLimit());
+            assertNull(store.name(second));
+        }
+    }
+
+    @Test
+    void reopeningShouldRebuildTheHeaderFromSlotFlags() throws IOException {
+        try (OffHeapTaskStore store = OffHeapTaskStore.mapped(path)) {
+            for (int id = 1; id <= 3; id++) {
+                store.write(store.allocate(), id, TaskType.TASK, TaskStatus.NEW, 0, "Задача " + id);
+            }
+            store.release(1);
+            store.setNextId(4);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // Slot limit, size, free list head and next id as a crash could leave them: ahead of the slots.
+            ByteBuffer header = ByteBuffer.allocate(16);
+            header.putInt(1_000_000).putInt(100).putInt(0).putInt(2).flip();
+            channel.write(header, 8);
+        }
+
+        try (OffHeapTaskStore store = OffHeapTaskStore.mapped(path)) {
+            assertEquals(3, store.slotLimit(), "Число слотов должно обрезаться до последнего занятого");
+            assertEquals(2, store.size());
+            assertEquals(4, store.nextId(), "Счётчик ID не должен повторять хранящиеся ID");
+            assertEquals(1, store.allocate(), "Список свободных слотов должен строиться по флагам");
+            assertEquals(3, store.allocate(), "Занятые слоты не должны выдаваться повторно");
+            assertEquals("Задача 1", store.name(0));
+            assertEquals("Задача 3", store.name(2));
+        }
+    }
+
+    @Test
+    void renamesShouldNotGrowTheNamesFileWithoutBound() throws IOException {
+        String longName = "x".repeat(4096);
+        try (OffHeapTaskStore store = OffHeapTaskStore.mapped(path)) {
+            int kept = store.allocate();
+            store.write(kept, 1, TaskType.EPIC, TaskStatus.NEW, 0, "Эпик");
+            int renamed = store.allocate();
+            for (int i = 0; i < 2000; i++) {
+                store.write(renamed, 2, TaskType.TASK, TaskStatus.NEW, 0, longName + i);
+            }
+            int released = store.allocate();
+            store.write(released, 3, TaskType.TASK, TaskStatus.NEW, 0, longName);
+            store.release(released);
+
+            assertTrue(store.deadNameBytes() < 2 * 1024 * 1024, "Мёртвые байты имён должны освобождаться уплотнением");
+            assertEquals("Эпик", store.name(kept));
+            assertEquals(longName + 1999, store.name(renamed));
+        }
+        assertTrue(Files.size(OffHeapTaskStore.namesPath(path)) <= 2 * 1024 * 1024,
+                "Файл имён должен сокращаться после уплотнения");
+
+        try (OffHeapTaskStore store = OffHeapTaskStore.mapped(path)) {
+            assertEquals("Эпик", store.name(0));
+            assertEquals(longName + 1999, store.name(1));
+            assertTrue(store.deadNameBytes() < 2 * 1024 * 1024, "Мёртвые байты должны пересчитываться при открытии");
+            store.write(store.allocate(), 3, TaskType.TASK, TaskStatus.NEW, 0, "Новая");
+            assertEquals(longName + 1999, store.name(1), "Новое имя не должно затирать хранящиеся");
+        }
+    }
+
+    @Test
+    void shouldRejectForeignFile() throws IOException {
+        Files.write(path, new byte[128]);
+
+        assertThrows(IOException.class, () -> OffHeapTaskStore.mapped(path));
+    }
+}
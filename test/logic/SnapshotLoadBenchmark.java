@@ -0,0 +1,48 @@
+package logic;
+
+import manager.FileBackedTaskManager;
+import manager.storage.SnapshotFormat;
+import manager.storage.StorageConfig;
+import tasks.Task;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Compares startup time of {@link FileBackedTaskManager} for CSV and binary snapshots.
+ * <p>
+ * Usage: {@code java logic.SnapshotLoadBenchmark [tasks]}
+ */
+public class SnapshotLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            File file = Files.createTempFile("tasks", "." + format.name().toLowerCase()).toFile();
+            StorageConfig config = StorageConfig.journal().withSnapshotFormat(format);
+            try (FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file, config)) {
+                LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+                for (int i = 0; i < count; i++) {
+                    Task task = new Task(0, "Task " + i, Duration.ofMinutes(30), base.plusHours(i));
+                    manager.createTask(task);
+                }
+                manager.compact();
+            }
+
+            for (int run = 0; run < 3; run++) {
+                long started = System.nanoTime();
+                try (FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, config)) {
+                    long elapsed = System.nanoTime() - started;
+                    System.out.printf("%-6s run %d: %,d tasks, %,d bytes, loaded in %d ms%n", format, run,
+                            loaded.getAllTasks().size(), file.length(), elapsed / 1_000_000);
+                }
+            }
+            Files.deleteIfExists(file.toPath());
+            Files.deleteIfExists(Path.of(file.getPath() + ".journal"));
+            Files.deleteIfExists(Path.of(file.getPath() + ".history"));
+        }
+    }
+}
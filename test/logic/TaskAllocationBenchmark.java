@@ -0,0 +1,77 @@
+package logic;
+
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import tasks.Task;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Measures heap allocated per operation on the hot scheduling paths of {@link InMemoryTaskManager}:
+ * the overlap check, {@code createTask} and {@code getEndTime}. Task objects are built before measuring,
+ * so only the work done by the manager is counted. Allocation is read from the thread's allocation counter.
+ * <p>
+ * Usage: {@code java logic.TaskAllocationBenchmark [tasks]}
+ */
+public class TaskAllocationBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        for (int round = 0; round < 3; round++) {
+            run(count, round == 2);
+        }
+    }
+
+    private static void run(int count, boolean report) {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Task[] tasks = new Task[count];
+        for (int i = 0; i < count; i++) {
+            tasks[i] = new Task(0, "Task " + i, Duration.ofMinutes(2), BASE.plusMinutes(3L * i));
+        }
+
+        long before = allocated();
+        long started = System.nanoTime();
+        for (Task task : tasks) {
+            manager.createTask(task);
+        }
+        long createBytes = allocated() - before;
+        long createNanos = System.nanoTime() - started;
+
+        Task probe = new Task(0, "Probe", Duration.ofSeconds(30), BASE.plusMinutes(3L * count / 2).plusSeconds(140));
+        int overlaps = 0;
+        before = allocated();
+        started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            if (manager.isTaskInvalid(probe)) {
+                overlaps++;
+            }
+        }
+        long checkBytes = allocated() - before;
+        long checkNanos = System.nanoTime() - started;
+
+        long hash = 0;
+        before = allocated();
+        for (Task task : tasks) {
+            hash += task.getEndTime().getMinute();
+        }
+        long endBytes = allocated() - before;
+
+        if (report) {
+            System.out.printf("createTask:    %8.1f bytes/op %8.1f ns/op%n",
+                    (double) createBytes / count, (double) createNanos / count);
+            System.out.printf("isTaskInvalid: %8.1f bytes/op %8.1f ns/op (overlaps: %d)%n",
+                    (double) checkBytes / count, (double) checkNanos / count, overlaps);
+            System.out.printf("getEndTime:    %8.1f bytes/op (checksum: %d)%n", (double) endBytes / count, hash);
+        }
+    }
+
+    private static long allocated() {
+
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+}
@@ -0,0 +1,111 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import server.gson.TaskTypeAdapterFactory;
+import tasks.SubTask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Compares the hand-written {@link TaskTypeAdapterFactory} with the previous setup (reflective model adapters
+ * with a tree-model {@code Duration} serializer) on lists of tasks and subtasks: time and heap allocated per list
+ * for serialization and deserialization. Allocation is read from the thread's allocation counter.
+ * <p>
+ * Usage: {@code java server.GsonAdapterBenchmark [listSize] [iterations]}
+ */
+public class GsonAdapterBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static long sink;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        Gson reflective = new GsonBuilder()
+                .registerTypeAdapter(Duration.class, (JsonSerializer<Duration>)
+                        (src, type, context) -> new JsonPrimitive(src.toString()))
+                .registerTypeAdapter(Duration.class, (JsonDeserializer<Duration>)
+                        (json, type, context) -> Duration.parse(json.getAsString()))
+                .registerTypeAdapter(LocalDateTime.class, new TypeAdapter<LocalDateTime>() {
+                    @Override
+                    public void write(JsonWriter out, LocalDateTime value) throws IOException {
+                        out.value(value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                    }
+
+                    @Override
+                    public LocalDateTime read(JsonReader in) throws IOException {
+                        return LocalDateTime.parse(in.nextString(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                    }
+                })
+                .create();
+        Gson streaming = new GsonBuilder().registerTypeAdapterFactory(new TaskTypeAdapterFactory()).create();
+
+        Task[] tasks = new Task[size];
+        SubTask[] subTasks = new SubTask[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task(i + 1, "Task " + i, Duration.ofMinutes(30), BASE.plusHours(i));
+            subTasks[i] = new SubTask(size + i + 1, "Subtask " + i, 1, Duration.ofMinutes(15), BASE.plusHours(i));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            if (report) {
+                System.out.printf("%d elements per list, %d iterations%n", size, iterations);
+            }
+            run("reflective", reflective, tasks, subTasks, iterations, report);
+            run("streaming", streaming, tasks, subTasks, iterations, report);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void run(String label, Gson gson, Task[] tasks, SubTask[] subTasks, int iterations,
+                            boolean report) {
+        String tasksJson = gson.toJson(tasks);
+        String subTasksJson = gson.toJson(subTasks);
+
+        long before = allocated();
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += gson.toJson(tasks).length() + gson.toJson(subTasks).length();
+        }
+        long writeNanos = System.nanoTime() - started;
+        long writeBytes = allocated() - before;
+
+        before = allocated();
+        started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += gson.fromJson(tasksJson, Task[].class).length + gson.fromJson(subTasksJson, SubTask[].class).length;
+        }
+        long readNanos = System.nanoTime() - started;
+        long readBytes = allocated() - before;
+
+        if (report) {
+            int lists = iterations * 2;
+            System.out.printf("%-10s toJson:   %8.2f ms/list %10.0f bytes/list%n",
+                    label, writeNanos / 1e6 / lists, (double) writeBytes / lists);
+            System.out.printf("%-10s fromJson: %8.2f ms/list %10.0f bytes/list%n",
+                    label, readNanos / 1e6 / lists, (double) readBytes / lists);
+        }
+    }
+
+    private static long allocated() {
+
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+}
@@ -2,6 +2,15 @@ package server;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import manager.ConcurrentTaskManager;
+import manager.FileBackedTaskManager;
+import manager.InMemoryHistoryManager;
 import manager.Managers;
 import manager.TaskManager;
 import org.junit.jupiter.api.AfterEach;
@@ -10,18 +19,49 @@ import org.junit.jupiter.api.Test;
 import server.gson.DurationTypeAdapter;
 import server.gson.LocalDateTimeTypeAdapter;
 import server.handler.*;
+import tasks.Epic;
+import tasks.SubTask;
+import tasks.Task;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpTaskServerTest {
     private HttpTaskServer server;
@@ -90,8 +130,506 @@ public class HttpTaskServerTest {
         assertEquals(200, sendGetRequest("/prioritized"));
     }
 
+    @Test
+    public void testVirtualThreadExecutorServesConcurrentRequests() throws Exception {
+        assertServesConcurrentRequests(ServerConfig.defaults().withExecutorMode(ExecutorMode.VIRTUAL_THREADS));
+    }
+
+    @Test
+    public void testBoundedPoolExecutorServesConcurrentRequests() throws Exception {
+        assertServesConcurrentRequests(ServerConfig.defaults()
+                .withExecutorMode(ExecutorMode.BOUNDED_POOL)
+                .withPoolSize(2)
+                .withQueueCapacity(64)
+                .withBacklog(64));
+    }
+
+    @Test
+    public void testBoundedPoolRejectsOverflowWithServiceUnavailable() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskManager blockingManager = new ConcurrentTaskManager(new InMemoryHistoryManager()) {
+            @Override
+            public List<Task> getTasksPage(int afterId, int limit) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTasksPage(afterId, limit);
+            }
+        };
+        HttpTaskServer poolServer = new HttpTaskServer(blockingManager, ServerConfig.defaults().withPort(8091)
+                .withExecutorMode(ExecutorMode.BOUNDED_POOL).withPoolSize(1).withQueueCapacity(1));
+        poolServer.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8091/tasks")).GET().build();
+            CompletableFuture<HttpResponse<String>> busy = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            assertTrue(entered.await(10, TimeUnit.SECONDS), "Первый запрос должен занять единственный поток");
+
+            List<CompletableFuture<HttpResponse<String>>> overflow = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                overflow.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            HttpResponse<?> first = (HttpResponse<?>) CompletableFuture.anyOf(overflow.toArray(CompletableFuture<?>[]::new))
+                    .get(10, TimeUnit.SECONDS);
+            assertEquals(503, first.statusCode(), "Пока поток занят, завершиться может только отклонённый запрос");
+
+            release.countDown();
+            assertEquals(200, busy.get(10, TimeUnit.SECONDS).statusCode());
+            for (CompletableFuture<HttpResponse<String>> response : overflow) {
+                int status = response.get(10, TimeUnit.SECONDS).statusCode();
+                assertTrue(status == 200 || status == 503, "Неожиданный статус: " + status);
+            }
+        } finally {
+            release.countDown();
+            poolServer.stop();
+        }
+    }
+
+    @Test
+    public void testStalledRejectedClientDoesNotBlockTheDispatcher() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskManager blockingManager = new ConcurrentTaskManager(new InMemoryHistoryManager()) {
+            @Override
+            public List<Task> getTasksPage(int afterId, int limit) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTasksPage(afterId, limit);
+            }
+        };
+        HttpTaskServer poolServer = new HttpTaskServer(blockingManager, ServerConfig.defaults().withPort(8093)
+                .withExecutorMode(ExecutorMode.BOUNDED_POOL).withPoolSize(1).withQueueCapacity(1));
+        poolServer.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8093/tasks"))
+                    .timeout(Duration.ofSeconds(5)).GET().build();
+            CompletableFuture<HttpResponse<String>> busy = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            assertTrue(entered.await(10, TimeUnit.SECONDS), "Первый запрос должен занять единственный поток");
+
+            try (Socket queued = new Socket("localhost", 8093); Socket stalled = new Socket("localhost", 8093)) {
+                byte[] partialRequest = "GET /tasks HTTP/1.1\r\nHost: localhost\r\n".getBytes(StandardCharsets.UTF_8);
+                queued.getOutputStream().write(partialRequest);
+                stalled.getOutputStream().write(partialRequest);
+                long started = System.nanoTime();
+                assertEquals(503, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                        "Зависший клиент не должен задерживать ответы другим");
+                // One stalled connection waits in the queue, the other one is rejected and must time out.
+                int timeout = (int) OverloadFilter.REJECT_TIMEOUT_MILLIS * 3;
+                assertTrue(isClosedWithin(stalled, timeout) || isClosedWithin(queued, timeout),
+                        "Зависшее отклонённое соединение должно закрываться по таймауту");
+                assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(timeout * 2L));
+            }
+
+            release.countDown();
+            assertEquals(200, busy.get(10, TimeUnit.SECONDS).statusCode());
+        } finally {
+            release.countDown();
+            poolServer.stop();
+        }
+    }
+
+    @Test
+    public void testParallelModeRequiresConcurrentManager() {
+
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getDefaultInMemoryManager(),
+                ServerConfig.defaults().withPort(8092).withExecutorMode(ExecutorMode.VIRTUAL_THREADS)));
+    }
+
+    @Test
+    public void testEpicSubtasksEndpoint() throws Exception {
+        TaskManager taskManager = Managers.getDefaultInMemoryManager();
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic"));
+        Epic other = taskManager.createEpic(new Epic(0, "Other"));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        SubTask subTask = taskManager.createSubTask(new SubTask(0, "Own", epic.getId(), Duration.ofMinutes(30), start));
+        taskManager.createSubTask(new SubTask(0, "Foreign", other.getId(), Duration.ofMinutes(30), start.plusHours(1)));
+        HttpTaskServer epicServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(8082));
+        epicServer.start();
+        try {
+            HttpResponse<String> response = sendGet(8082, "/epics/" + epic.getId() + "/subtasks");
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"id\":" + subTask.getId()), "Ответ должен содержать подзадачу эпика");
+            assertTrue(!response.body().contains("Foreign"), "Ответ не должен содержать чужие подзадачи");
+            assertEquals(404, sendGet(8082, "/epics/999/subtasks").statusCode());
+            assertTrue(taskManager.getHistory().isEmpty(), "Список подзадач не должен считаться просмотром эпика");
+            String epics = sendGet(8082, "/epics").body();
+            assertTrue(epics.contains("\"subTasks\":[{"), "Подзадачи эпика должны сериализоваться массивом");
+        } finally {
+            epicServer.stop();
+        }
+    }
+
+    @Test
+    public void testPrioritizedEndpointReflectsMutationsAfterCaching() throws Exception {
+        TaskManager taskManager = Managers.getDefaultConcurrentManager();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        taskManager.createTask(new Task(0, "Первая", Duration.ofMinutes(30), start));
+        HttpTaskServer prioritizedServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(8083));
+        prioritizedServer.start();
+        try {
+            String first = sendGet(8083, "/prioritized").body();
+            assertEquals(first, sendGet(8083, "/prioritized").body(), "Повторный ответ должен совпадать");
+            assertTrue(first.contains("Первая"), "Кириллица должна передаваться целиком");
+
+            taskManager.createTask(new Task(0, "Вторая", Duration.ofMinutes(30), start.minusHours(1)));
+
+            String updated = sendGet(8083, "/prioritized").body();
+            assertTrue(updated.indexOf("Вторая") >= 0 && updated.indexOf("Вторая") < updated.indexOf("Первая"),
+                    "После изменения ответ должен строиться заново");
+        } finally {
+            prioritizedServer.stop();
+        }
+    }
+
+    @Test
+    public void testPrioritizedRangeQuery() throws Exception {
+        TaskManager taskManager = Managers.getDefaultConcurrentManager();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task(0, "Task " + i, Duration.ofMinutes(30), start.plusHours(i)));
+        }
+        HttpTaskServer rangeServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(8084));
+        rangeServer.start();
+        try {
+            HttpResponse<String> response = sendGet(8084, "/prioritized?from=2024-01-01T10:00&to=2024-01-01T13:00&limit=2");
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("Task 1") && response.body().contains("Task 2")
+                    && !response.body().contains("Task 3") && !response.body().contains("Task 0"),
+                    "Ответ должен содержать только задачи из интервала с учётом лимита");
+            assertEquals(400, sendGet(8084, "/prioritized?from=yesterday").statusCode());
+            assertEquals(400, sendGet(8084, "/prioritized?limit=0").statusCode());
+        } finally {
+            rangeServer.stop();
+        }
+    }
+
+    @Test
+    public void testCollectionPagination() throws Exception {
+        TaskManager taskManager = Managers.getDefaultConcurrentManager();
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task(0, "Task " + i));
+        }
+        HttpTaskServer pageServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(8085));
+        pageServer.start();
+        try {
+            String first = sendGet(8085, "/tasks?limit=3").body();
+            assertTrue(first.startsWith("{\"items\":[") && first.endsWith("\"next\":3}"),
+                    "Полная страница должна содержать курсор следующей: " + first);
+            String last = sendGet(8085, "/tasks?after=3&limit=3").body();
+            assertTrue(last.contains("Task 3") && last.contains("Task 4") && !last.contains("next"),
+                    "Последняя страница не должна содержать курсор: " + last);
+            assertTrue(sendGet(8085, "/tasks").body().startsWith("["), "Без параметров должен возвращаться массив");
+            assertEquals(400, sendGet(8085, "/epics?after=abc").statusCode());
+        } finally {
+            pageServer.stop();
+        }
+    }
+
+    @Test
+    public void testFullCollectionIsStreamedAcrossPages() throws Exception {
+        TaskManager taskManager = Managers.getDefaultConcurrentManager();
+        int count = PageRequest.MAX_LIMIT * 2 + 7;
+        for (int i = 0; i < count; i++) {
+            taskManager.createTask(new Task(0, "Task " + i));
+        }
+        HttpTaskServer streamServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(8086));
+        streamServer.start();
+        try {
+            HttpResponse<String> response = sendGet(8086, "/tasks");
+            assertEquals(200, response.statusCode());
+            JsonArray tasks = JsonParser.parseString(response.body()).getAsJsonArray();
+            assertEquals(count, tasks.size(), "Все страницы должны попасть в один массив");
+            for (int i = 0; i < count; i++) {
+                assertEquals(i + 1, tasks.get(i).getAsJsonObject().get("id").getAsInt(),
+                        "Задачи должны идти в порядке ID без пропусков и повторов");
+            }
+        } finally {
+            streamServer.stop();
+        }
+    }
+
+    @Test
+    public void testOversizedRequestBodyIsRejected() throws Exception {
+        TaskManager taskManager = Managers.getDefaultConcurrentManager();
+        HttpTaskServer limitedServer = new HttpTaskServer(taskManager,
+                ServerConfig.defaults().withPort(8087).withMaxBodySize(64));
+        limitedServer.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            URI uri = URI.create("http://localhost:8087/tasks");
+            String small = "{\"name\":\"Task\"}";
+            String large = "{\"name\":\"" + "x".repeat(100) + "\"}";
+
+            HttpResponse<String> created = client.send(HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(small)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(201, created.statusCode());
+
+            HttpResponse<String> declared = client.send(HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(large)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(413, declared.statusCode(), "Тело с большим Content-Length должно отклоняться");
+
+            HttpResponse<String> chunked = client.send(HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofInputStream(
+                            () -> new ByteArrayInputStream(large.getBytes()))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(413, chunked.statusCode(), "Тело без Content-Length должно ограничиваться при чтении");
+            assertEquals(1, taskManager.getAllTasks().size(), "Отклонённые запросы не должны создавать задачи");
+        } finally {
+            limitedServer.stop();
+        }
+    }
+
+    @Test
+    public void testMalformedContentLengthIsRejected() throws Exception {
+        TaskManager taskManager = Managers.getDefaultInMemoryManager();
+        StubExchange exchange = new StubExchange("POST", "/tasks", "{\"name\":\"Task\"}");
+        exchange.getRequestHeaders().set("Content-Length", "12abc");
+
+        new TaskHandler(taskManager, new Gson()).handle(exchange);
+
+        assertEquals(400, exchange.status, "Некорректный Content-Length должен давать 400, а не 500");
+        assertTrue(taskManager.getAllTasks().isEmpty());
+    }
+
+    @Test
+    public void testFailureWhileStreamingAbortsTheExchangeInsteadOfSendingAnotherStatus() throws Exception {
+        TaskManager failingManager = new ConcurrentTaskManager(new InMemoryHistoryManager()) {
+            @Override
+            public List<Task> getTasksPage(int afterId, int limit) {
+                throw new IllegalArgumentException("Страница не читается");
+            }
+        };
+        StubExchange exchange = new StubExchange("GET", "/tasks", "");
+
+        new TaskHandler(failingManager, new Gson()).handle(exchange);
+
+        assertEquals(1, exchange.headersSent, "После начала тела второй статус отправляться не должен");
+        assertEquals(200, exchange.status);
+        assertTrue(exchange.closed, "Обмен должен прерываться закрытием");
+
+        StubExchange badPage = new StubExchange("GET", "/tasks?limit=0", "");
+        new TaskHandler(failingManager, new Gson()).handle(badPage);
+        assertEquals(400, badPage.status, "Некорректные параметры страницы по-прежнему дают 400");
+    }
+
+    @Test
+    public void testResponsesAreCompressedWhenAccepted() throws Exception {
+        TaskManager taskManager = Managers.getDefaultConcurrentManager();
+        for (int i = 0; i < 200; i++) {
+            taskManager.createTask(new Task(0, "Task " + i, Duration.ofMinutes(30),
+                    LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(i)));
+        }
+        HttpTaskServer compressingServer = new HttpTaskServer(taskManager,
+                ServerConfig.defaults().withPort(8088).withCompressionThreshold(512));
+        compressingServer.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<byte[]> plain = sendGet(client, "/tasks", null);
+            assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty());
+            String expected = new String(plain.body(), StandardCharsets.UTF_8);
+
+            HttpResponse<byte[]> gzip = sendGet(client, "/tasks", "deflate;q=0.5, gzip");
+            assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElse(null));
+            assertTrue(gzip.body().length < plain.body().length / 2, "Повторяющийся JSON должен хорошо сжиматься");
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.body()))) {
+                assertEquals(expected, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+
+            HttpResponse<byte[]> deflate = sendGet(client, "/prioritized", "gzip;q=0, deflate");
+            assertEquals("deflate", deflate.headers().firstValue("Content-Encoding").orElse(null));
+            try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(deflate.body()))) {
+                assertArrayEquals(sendGet(client, "/prioritized", null).body(), in.readAllBytes(),
+                        "Закэшированный ответ должен сжиматься без изменения содержимого");
+            }
+
+            HttpResponse<byte[]> small = sendGet(client, "/history", "gzip");
+            assertTrue(small.headers().firstValue("Content-Encoding").isEmpty(),
+                    "Ответы не длиннее порога не должны сжиматься");
+            assertEquals("[]", new String(small.body(), StandardCharsets.UTF_8));
+        } finally {
+            compressingServer.stop();
+        }
+    }
+
+    @Test
+    public void testConditionalGetAnswersNotModified() throws Exception {
+        TaskManager taskManager = Managers.getDefaultConcurrentManager();
+        Task task = taskManager.createTask(new Task(0, "Task", Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 9, 0)));
+        HttpTaskServer etagServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(8089));
+        etagServer.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (String path : List.of("/tasks", "/epics", "/prioritized", "/history", "/tasks?limit=5")) {
+                HttpResponse<String> first = sendConditionalGet(client, path, null);
+                String etag = first.headers().firstValue("ETag").orElseThrow();
+                HttpResponse<String> cached = sendConditionalGet(client, path, etag);
+                assertEquals(304, cached.statusCode(), "Неизменившиеся данные не должны отправляться заново: " + path);
+                assertTrue(cached.body().isEmpty());
+            }
+
+            String tasksTag = sendConditionalGet(client, "/tasks", null).headers().firstValue("ETag").orElseThrow();
+            String historyTag = sendConditionalGet(client, "/history", null).headers().firstValue("ETag").orElseThrow();
+            taskManager.getTask(task.getId());
+            assertEquals(304, sendConditionalGet(client, "/tasks", tasksTag).statusCode());
+            assertEquals(200, sendConditionalGet(client, "/history", historyTag).statusCode(),
+                    "Просмотр задачи должен менять ETag истории");
+
+            taskManager.createTask(new Task(0, "Another"));
+            HttpResponse<String> changed = sendConditionalGet(client, "/tasks", tasksTag);
+            assertEquals(200, changed.statusCode(), "После изменения должен отправляться новый ответ");
+            assertTrue(changed.body().contains("Another"));
+        } finally {
+            etagServer.stop();
+        }
+    }
+
+    @Test
+    public void testConditionalRangeQueryAnswersNotModifiedBeforeReadingTheRange() throws Exception {
+        AtomicInteger rangeReads = new AtomicInteger();
+        TaskManager countingManager = new ConcurrentTaskManager(new InMemoryHistoryManager()) {
+            @Override
+            public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+                rangeReads.incrementAndGet();
+                return super.getPrioritizedTasks(from, to, limit);
+            }
+        };
+        countingManager.createTask(new Task(0, "Task", Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 9, 0)));
+        HttpTaskServer etagServer = new HttpTaskServer(countingManager, ServerConfig.defaults().withPort(8089));
+        etagServer.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            String path = "/prioritized?from=2024-01-01T08:00&limit=1";
+            HttpResponse<String> first = sendConditionalGet(client, path, null);
+            assertEquals(200, first.statusCode());
+            assertEquals(1, rangeReads.get());
+            assertEquals("Accept-Encoding", first.headers().firstValue("Vary").orElse(null));
+
+            HttpResponse<String> cached = sendConditionalGet(client, path, first.headers().firstValue("ETag").orElseThrow());
+            assertEquals(304, cached.statusCode());
+            assertEquals(1, rangeReads.get(), "При совпадении ETag интервал не должен вычисляться");
+            assertEquals("Accept-Encoding", cached.headers().firstValue("Vary").orElse(null),
+                    "Ответ 304 должен нести тот же Vary, что и 200");
+
+            assertEquals(400, sendConditionalGet(client, "/prioritized?from=2024-01-02T00:00&to=2024-01-01T00:00",
+                    null).statusCode(), "Начало интервала позже конца должно давать 400");
+        } finally {
+            etagServer.stop();
+        }
+    }
+
+    @Test
+    public void testEtagFromBeforeARestartDoesNotMatch() throws Exception {
+        File file = Files.createTempFile("tasks", ".csv").toFile();
+        try {
+            try (FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), file)) {
+                manager.createTask(new Task(0, "Задача"));
+            }
+            String oldTag;
+            long oldVersion;
+            try (FileBackedTaskManager before = FileBackedTaskManager.loadFromFile(file)) {
+                renameOnlyTask(before, "Старая");
+                oldVersion = before.getVersion();
+                oldTag = fetchEtagAndStop(before);
+            }
+            try (FileBackedTaskManager restarted = FileBackedTaskManager.loadFromFile(file)) {
+                renameOnlyTask(restarted, "Новая");
+                assertEquals(oldVersion, restarted.getVersion(), "Те же изменения дают ту же версию после перезапуска");
+                HttpTaskServer etagServer = new HttpTaskServer(restarted, ServerConfig.defaults().withPort(8089));
+                etagServer.start();
+                try (HttpClient client = HttpClient.newHttpClient()) {
+                    HttpResponse<String> response = sendConditionalGet(client, "/tasks", oldTag);
+                    assertEquals(200, response.statusCode(), "ETag до перезапуска не должен давать 304");
+                    assertTrue(response.body().contains("Новая"));
+                } finally {
+                    etagServer.stop();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private static void renameOnlyTask(TaskManager taskManager, String name) {
+        Task task = taskManager.getAllTasks().getFirst();
+        task.setName(name);
+        taskManager.updateTask(task);
+    }
+
+    private String fetchEtagAndStop(TaskManager taskManager) throws IOException, InterruptedException {
+        HttpTaskServer etagServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(8089));
+        etagServer.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return sendConditionalGet(client, "/tasks", null).headers().firstValue("ETag").orElseThrow();
+        } finally {
+            etagServer.stop();
+        }
+    }
+
+    private static boolean isClosedWithin(Socket socket, int timeoutMillis) throws IOException {
+        socket.setSoTimeout(timeoutMillis);
+        try {
+            return socket.getInputStream().read() == -1;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } catch (SocketException e) {
+            return true;
+        }
+    }
+
+    private HttpResponse<String> sendConditionalGet(HttpClient client, String path, String etag)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:8089" + path)).GET();
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<byte[]> sendGet(HttpClient client, String path, String acceptEncoding)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:8088" + path)).GET();
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpResponse<String> sendGet(int port, String path) throws IOException, InterruptedException {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    private void assertServesConcurrentRequests(ServerConfig config) throws Exception {
+        int port = 8081;
+        HttpTaskServer modeServer = new HttpTaskServer(config.withPort(port));
+        modeServer.start();
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Integer>> responses = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                responses.add(clients.submit(() -> sendGetRequest(port, "/tasks")));
+            }
+            for (Future<Integer> response : responses) {
+                assertEquals(200, response.get());
+            }
+        } finally {
+            clients.shutdown();
+            modeServer.stop();
+        }
+    }
+
     private int sendGetRequest(String path) throws IOException, URISyntaxException {
-        URL url = new URL(new URI("http", null, "localhost", 8080, path, null, null).toString());
+
+        return sendGetRequest(8080, path);
+    }
+
+    private int sendGetRequest(int port, String path) throws IOException, URISyntaxException {
+        URL url = new URI("http", null, "localhost", port, path, null, null).toURL();
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setRequestMethod("GET");
         int responseCode = connection.getResponseCode();
@@ -107,5 +645,110 @@ public class HttpTaskServerTest {
 
         return responseCode;
     }
-}
 
+    /**
+     * Exchange that feeds a fixed request to a handler without a server, for requests the JDK server would
+     * reject before they reach the handler.
+     */
+    private static class StubExchange extends HttpExchange {
+        private final Headers requestHeaders = new Headers();
+        private final Headers responseHeaders = new Headers();
+        private final String method;
+        private final URI uri;
+        private final InputStream body;
+        private final ByteArrayOutputStream response = new ByteArrayOutputStream();
+        private int status;
+        private int headersSent;
+        private boolean closed;
+
+        StubExchange(String method, String uri, String body) {
+            this.method = method;
+            this.uri = URI.create(uri);
+            this.body = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Headers getRequestHeaders() {
+            return requestHeaders;
+        }
+
+        @Override
+        public Headers getResponseHeaders() {
+            return responseHeaders;
+        }
+
+        @Override
+        public URI getRequestURI() {
+            return uri;
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return method;
+        }
+
+        @Override
+        public HttpContext getHttpContext() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public InputStream getRequestBody() {
+            return body;
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return response;
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) {
+            status = rCode;
+            headersSent++;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return status;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public String getProtocol() {
+            return "HTTP/1.1";
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return null;
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+        }
+
+        @Override
+        public void setStreams(InputStream i, OutputStream o) {
+        }
+
+        @Override
+        public HttpPrincipal getPrincipal() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package server;
+
+import manager.Managers;
+import manager.TaskManager;
+import tasks.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator for {@link HttpTaskServer}: runs the same mix of GET requests against every executor mode
+ * with a number of concurrent clients and prints throughput and latency percentiles.
+ * <p>
+ * Usage: {@code java server.HttpTaskServerThroughput [clients] [requestsPerClient] [preloadedTasks]}
+ */
+public class HttpTaskServerThroughput {
+    private static final int PORT = 8090;
+    private static final String[] PATHS = {"/tasks", "/prioritized", "/epics", "/history"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int preloadedTasks = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        for (ExecutorMode mode : ExecutorMode.values()) {
+            TaskManager taskManager = Managers.getDefaultConcurrentManager();
+            LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+            for (int i = 0; i < preloadedTasks; i++) {
+                taskManager.createTask(new Task(0, "Task " + i, Duration.ofMinutes(30), base.plusHours(i)));
+            }
+            ServerConfig config = ServerConfig.defaults()
+                    .withPort(PORT)
+                    .withExecutorMode(mode)
+                    .withBacklog(clients * 2);
+            HttpTaskServer server = new HttpTaskServer(taskManager, config);
+            server.start();
+            try {
+                run(mode, clients, requestsPerClient);
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    private static void run(ExecutorMode mode, int clients, int requestsPerClient) throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(clients);
+        HttpClient client = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .build();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long[] latencies = new long[clients * requestsPerClient];
+
+        send(client, "/tasks");
+        long started = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int offset = c * requestsPerClient;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < requestsPerClient; i++) {
+                    long requestStart = System.nanoTime();
+                    send(client, PATHS[i % PATHS.length]);
+                    latencies[offset + i] = System.nanoTime() - requestStart;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+        clientExecutor.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-16s %8.0f req/s   p50=%6.2f ms   p99=%6.2f ms%n",
+                mode,
+                latencies.length / (elapsed / 1e9),
+                latencies[latencies.length / 2] / 1e6,
+                latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+
+    private static void send(HttpClient client, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + path)).GET().build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + path);
+        }
+    }
+}
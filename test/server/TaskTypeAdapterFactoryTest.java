@@ -0,0 +1,114 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+import server.gson.DurationTypeAdapter;
+import server.gson.LocalDateTimeTypeAdapter;
+import server.gson.TaskTypeAdapterFactory;
+import tasks.*;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskTypeAdapterFactoryTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 10, 0);
+    private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(new TaskTypeAdapterFactory()).create();
+
+    @Test
+    void shouldWriteTheReflectiveShape() {
+        Task task = new Task(1, "Задача", Duration.ofMinutes(30), START);
+        SubTask subTask = new SubTask(3, "Подзадача", 2, Duration.ofMinutes(15), START);
+        Epic epic = new Epic(2, "Эпик");
+        epic.addSubTask(subTask);
+        epic.createEpicDateTime();
+
+        assertEquals("{\"id\":1,\"name\":\"Задача\",\"status\":\"NEW\",\"duration\":\"PT30M\","
+                + "\"startTime\":\"2024-01-01T10:00:00\"}", gson.toJson(task));
+        assertEquals("{\"epicId\":2,\"id\":3,\"name\":\"Подзадача\",\"status\":\"NEW\",\"duration\":\"PT15M\","
+                + "\"startTime\":\"2024-01-01T10:00:00\"}", gson.toJson(subTask));
+        assertEquals("{\"id\":2,\"name\":\"Эпик\",\"status\":\"NEW\",\"duration\":\"PT15M\","
+                + "\"startTime\":\"2024-01-01T10:00:00\",\"subTasks\":[" + gson.toJson(subTask) + "],"
+                + "\"endTime\":\"2024-01-01T10:15:00\"}", gson.toJson(epic));
+        assertEquals("{\"id\":4,\"status\":\"NEW\"}", gson.toJson(new Task(4, null)),
+                "Пустые поля не должны выводиться");
+    }
+
+    @Test
+    void shouldMatchReflectiveGsonOutput() {
+        Gson reflective = new GsonBuilder()
+                .registerTypeAdapter(Duration.class, new DurationTypeAdapter().nullSafe())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter().nullSafe())
+                .create();
+        SubTask first = new SubTask(3, "Подзадача", 2, Duration.ofMinutes(15), START.withNano(123_456_789));
+        SubTask second = new SubTask(4, null, 2, null, null);
+        second.setStatus(TaskStatus.DONE);
+        List<Task> tasks = List.of(new Task(1, "Задача", Duration.ofSeconds(90), START),
+                new Task(5, null), first, second);
+        for (Task task : tasks) {
+            assertEquals(reflective.toJson(task), gson.toJson(task),
+                    "Потоковый адаптер должен писать поля в том же порядке, что и рефлексия");
+        }
+
+        Epic epic = new Epic(2, "Эпик");
+        epic.addSubTask(first);
+        epic.addSubTask(second);
+        epic.createEpicDateTime();
+        JsonObject expected = reflective.toJsonTree(epic, Task.class).getAsJsonObject();
+        JsonArray subTasks = new JsonArray();
+        for (SubTask subTask : epic.getSubTasks()) {
+            subTasks.add(reflective.toJsonTree(subTask, SubTask.class));
+        }
+        expected.add("subTasks", subTasks);
+        expected.add("endTime", reflective.toJsonTree(epic.getEndTime(), LocalDateTime.class));
+        assertEquals(reflective.toJson(expected), gson.toJson(epic),
+                "Эпик должен выводиться так же, как прежним сериализатором");
+    }
+
+    @Test
+    void shouldReadWhatItWrites() {
+        SubTask subTask = new SubTask(3, "Подзадача", 2, Duration.ofMinutes(15), START);
+        subTask.setStatus(TaskStatus.DONE);
+
+        SubTask read = gson.fromJson(gson.toJson(subTask), SubTask.class);
+
+        assertEquals(subTask.getId(), read.getId());
+        assertEquals(subTask.getName(), read.getName());
+        assertEquals(subTask.getEpicId(), read.getEpicId());
+        assertEquals(TaskStatus.DONE, read.getStatus());
+        assertEquals(subTask.getEndTime(), read.getEndTime(), "Время окончания должно вычисляться при чтении");
+        List<Task> tasks = List.of(gson.fromJson("[{\"name\":\"a\",\"extra\":[1,{}]},{\"id\":5,\"duration\":null}]",
+                Task[].class));
+        assertEquals("a", tasks.get(0).getName(), "Неизвестные поля должны пропускаться");
+        assertEquals(TaskStatus.NEW, tasks.get(1).getStatus());
+    }
+
+    @Test
+    void dateTimesShouldMatchTheIsoFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        List<LocalDateTime> values = List.of(START, START.withNano(500_000_000), START.withNano(123_456_789),
+                START.withNano(1_000), LocalDateTime.of(12024, 12, 31, 23, 59, 59), LocalDateTime.of(7, 2, 3, 4, 5));
+        for (LocalDateTime value : values) {
+            String json = gson.toJson(value);
+            assertEquals("\"" + value.format(formatter) + "\"", json);
+            assertEquals(value, gson.fromJson(json, LocalDateTime.class));
+        }
+        assertEquals(START, gson.fromJson("\"2024-01-01T10:00\"", LocalDateTime.class),
+                "Время без секунд должно разбираться форматтером");
+        assertThrows(DateTimeException.class, () -> gson.fromJson("\"2024-13-01T10:00:00\"", LocalDateTime.class));
+    }
+
+    @Test
+    void shouldRejectUnknownStatus() {
+
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"status\":\"LATER\"}", Task.class));
+    }
+}
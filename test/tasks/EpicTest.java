@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -139,4 +142,91 @@ class EpicTest {
                 name, id, TaskStatus.NEW, epic.getStartTime(), epic.getDuration());
         assertEquals(expectedString, epic.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void aggregatesShouldFollowSubTaskReplacementAndRemoval() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        SubTask early = new SubTask(2, "Early", epic.getId(), Duration.ofHours(1), start);
+        SubTask late = new SubTask(3, "Late", epic.getId(), Duration.ofHours(2), start.plusDays(1));
+        epic.addSubTask(early);
+        epic.addSubTask(late);
+
+        SubTask finished = new SubTask(late);
+        finished.setStatus(TaskStatus.DONE);
+        epic.addSubTask(finished);
+        epic.createEpicDateTime();
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.calculateStatus(), "Замена подзадачи должна обновлять статус");
+        assertEquals(Duration.ofHours(3), epic.getDuration(), "Замена подзадачи не должна удваивать продолжительность");
+        assertEquals(start.plusDays(1).plusHours(2), epic.getEndTime());
+
+        epic.deleteSubTask(finished);
+        epic.createEpicDateTime();
+
+        assertEquals(TaskStatus.NEW, epic.calculateStatus());
+        assertEquals(start, epic.getStartTime());
+        assertEquals(start.plusHours(1), epic.getEndTime());
+        assertEquals(Duration.ofHours(1), epic.getDuration());
+    }
+
+    @Test
+    void aggregatesShouldMatchFullRecomputation() {
+        Random random = new Random(11);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<SubTask> current = new ArrayList<>();
+        for (int step = 0; step < 2_000; step++) {
+            if (!current.isEmpty() && random.nextInt(3) == 0) {
+                SubTask removed = current.remove(random.nextInt(current.size()));
+                epic.deleteSubTask(removed);
+            } else {
+                SubTask subTask = new SubTask(100 + step, "SubTask", epic.getId(),
+                        Duration.ofMinutes(random.nextInt(120)), base.plusMinutes(random.nextInt(10_000)));
+                subTask.setStatus(TaskStatus.values()[random.nextInt(TaskStatus.values().length)]);
+                current.add(subTask);
+                epic.addSubTask(subTask);
+            }
+            epic.createEpicDateTime();
+
+            if (current.isEmpty()) {
+                assertNull(epic.getStartTime());
+                continue;
+            }
+            assertEquals(current.stream().map(SubTask::getStartTime).min(LocalDateTime::compareTo).orElseThrow(),
+                    epic.getStartTime());
+            assertEquals(current.stream().map(SubTask::getEndTime).max(LocalDateTime::compareTo).orElseThrow(),
+                    epic.getEndTime());
+            assertEquals(current.stream().map(SubTask::getDuration).reduce(Duration.ZERO, Duration::plus),
+                    epic.getDuration());
+            boolean allDone = current.stream().allMatch(s -> s.getStatus() == TaskStatus.DONE);
+            boolean allNew = current.stream().allMatch(s -> s.getStatus() == TaskStatus.NEW);
+            TaskStatus expected = allDone ? TaskStatus.DONE : allNew ? TaskStatus.NEW : TaskStatus.IN_PROGRESS;
+            assertEquals(expected, epic.calculateStatus(), "Статус должен совпадать с полным пересчётом");
+        }
+    }
+
+    @Test
+    void addingSameSubTaskIdShouldReplaceInsteadOfDuplicating() {
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 9, 0);
+        SubTask first = new SubTask(2, "First", epic.getId(), Duration.ofHours(1), startTime);
+        SubTask second = new SubTask(3, "Second", epic.getId(), Duration.ofHours(1), startTime.plusHours(2));
+        epic.addSubTask(first);
+        epic.addSubTask(second);
+
+        SubTask renamed = new SubTask(first);
+        renamed.setName("Renamed");
+        epic.addSubTask(renamed);
+
+        assertEquals(2, epic.getSubTasks().size(), "Повторное добавление подзадачи не должно создавать дубликат");
+        assertEquals("Renamed", epic.getSubTasks().iterator().next().getName(), "Порядок подзадач должен сохраняться");
+    }
+
+    @Test
+    void getSubTasksShouldReturnReadOnlyLiveView() {
+        SubTask subTask = new SubTask(2, "SubTask", epic.getId(), Duration.ofHours(1), LocalDateTime.now());
+        var view = epic.getSubTasks();
+        epic.addSubTask(subTask);
+
+        assertTrue(view.contains(subTask), "Представление должно отражать добавленные подзадачи");
+        assertThrows(UnsupportedOperationException.class, () -> view.remove(subTask));
+    }
+}
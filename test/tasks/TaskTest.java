@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -156,4 +157,47 @@ class TaskTest {
                 name, id, TaskStatus.NEW, startTime, duration);
         assertEquals(expectedString, task.toString());
     }
+
+    @Test
+    void cachedEndTimeShouldFollowStartAndDuration() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 10, 8, 0, 0, 500);
+        Task other = new Task(2, "Other", Duration.ofMinutes(10), start.plusNanos(1));
+
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(90));
+
+        assertEquals(start.plusMinutes(90), task.getEndTime(), "Время окончания должно пересчитываться");
+        assertSame(task.getEndTime(), task.getEndTime(), "Время окончания должно кэшироваться");
+        assertEquals(500, task.getStartNano());
+        assertTrue(task.compareStartTime(other) < 0, "Сравнение должно учитывать наносекунды");
+        assertEquals(0, task.compareStartTime(new Task(task)));
+
+        task.setDuration(null);
+        assertEquals(start, task.getEndTime());
+    }
+
+    @Test
+    void epicEndTimeShouldUpdateEpochValues() {
+        Epic epic = new Epic(3, "Epic");
+        LocalDateTime end = LocalDateTime.of(2024, 3, 10, 18, 0);
+
+        epic.setEndTime(end);
+
+        assertEquals(end, epic.getEndTime());
+        assertEquals(end.toEpochSecond(ZoneOffset.UTC), epic.getEndEpochSecond());
+    }
+
+    @Test
+    void epicEndTimeShouldNotFollowStartAndDuration() {
+        Epic epic = new Epic(3, "Epic");
+        LocalDateTime end = LocalDateTime.of(2024, 3, 10, 18, 0);
+        epic.setEndTime(end);
+
+        epic.setStartTime(end.minusHours(5));
+        epic.setDuration(Duration.ofMinutes(30));
+
+        assertEquals(end, epic.getEndTime(), "Время окончания эпика задаётся подзадачами, а не длительностью");
+        assertEquals(end, new Epic(epic).getEndTime(), "Копия эпика должна сохранять время окончания");
+        assertNull(new Epic(4, "Empty").getEndTime());
+    }
 }